@@ -0,0 +1,80 @@
+package ecom.keycloakgw.benchmark;
+
+import ecom.keycloakgw.application.dto.ApiResponse;
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.infrastructure.config.JacksonConfig;
+import ecom.keycloakgw.infrastructure.json.JsonCodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResponseBenchmark {
+
+    private static final String REQUEST_ID = "0af7651916cd43dd8448eb211c80319c";
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final JsonCodecs jsonCodecs = new JsonCodecs(JsonMapper.builder()
+            .addModule(new JacksonConfig().apiResponseModule())
+            .build());
+    private final ObjectWriter successWriter = jsonCodecs.envelopeWriter(IntrospectResponse.class);
+    private final ObjectWriter errorWriter = jsonCodecs.envelopeWriter(Void.class);
+    private final IntrospectResponse introspection = IntrospectResponse.builder()
+            .active(true)
+            .username("alice")
+            .clientId("ecom-client")
+            .tokenType("Bearer")
+            .scope("openid profile email")
+            .sub("4a5b6c7d-1111-2222-3333-444455556666")
+            .exp(1893456000L)
+            .iat(1700000000L)
+            .build();
+
+    @Benchmark
+    public ApiResponse<IntrospectResponse> createSuccess() {
+        return ApiResponse.success(REQUEST_ID, introspection);
+    }
+
+    @Benchmark
+    public ApiResponse<Void> createError() {
+        return ApiResponse.error(REQUEST_ID, ErrorCode.UNAUTHORIZED.getCode(), ErrorCode.UNAUTHORIZED.getMessage());
+    }
+
+    @Benchmark
+    public byte[] serializeSuccess() {
+        return jsonMapper.writeValueAsBytes(ApiResponse.success(REQUEST_ID, introspection));
+    }
+
+    @Benchmark
+    public byte[] serializeError() {
+        return jsonMapper.writeValueAsBytes(
+                ApiResponse.error(REQUEST_ID, ErrorCode.UNAUTHORIZED.getCode(), ErrorCode.UNAUTHORIZED.getMessage()));
+    }
+
+    @Benchmark
+    public byte[] serializeSuccessFastPath() {
+        return successWriter.writeValueAsBytes(ApiResponse.success(REQUEST_ID, introspection));
+    }
+
+    @Benchmark
+    public byte[] serializeErrorFastPath() {
+        return errorWriter.writeValueAsBytes(
+                ApiResponse.error(REQUEST_ID, ErrorCode.UNAUTHORIZED.getCode(), ErrorCode.UNAUTHORIZED.getMessage()));
+    }
+}
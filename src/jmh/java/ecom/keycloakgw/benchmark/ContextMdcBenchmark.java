@@ -0,0 +1,63 @@
+package ecom.keycloakgw.benchmark;
+
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.MDC;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of carrying the request ids into the MDC for a request-shaped chain with one
+ * callback log. The log call itself is a {@link Blackhole} so only the propagation is
+ * measured; {@code plain} logs without any MDC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextMdcBenchmark {
+
+    private final Context context = Context.of(RequestIdWebFilter.REQUEST_ID_KEY, "0b1c2d3e4f5a6b7c8d9e0f1a2b3c4d5e",
+            RequestIdWebFilter.TRACE_ID_KEY, "0b1c2d3e4f5a6b7c8d9e0f1a2b3c4d5e");
+
+    @Benchmark
+    public Object plain(Blackhole blackhole) {
+        return Mono.just("user")
+                .map(String::length)
+                .doOnNext(blackhole::consume)
+                .contextWrite(context)
+                .block();
+    }
+
+    @Benchmark
+    public Object callbackLog(Blackhole blackhole) {
+        return Mono.just("user")
+                .map(String::length)
+                .doOnEach(ContextMdc.onNext(value -> blackhole.consume(MDC.get(RequestIdWebFilter.REQUEST_ID_KEY))))
+                .contextWrite(context)
+                .block();
+    }
+
+    @Benchmark
+    public Object callbackLogAndSubscribe(Blackhole blackhole) {
+        return ContextMdc.subscribeWithMdc(Mono.just("user")
+                        .map(String::length)
+                        .doOnEach(ContextMdc.onNext(value -> blackhole.consume(MDC.get(RequestIdWebFilter.REQUEST_ID_KEY)))))
+                .contextWrite(context)
+                .block();
+    }
+}
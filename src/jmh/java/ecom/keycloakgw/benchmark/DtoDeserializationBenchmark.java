@@ -0,0 +1,47 @@
+package ecom.keycloakgw.benchmark;
+
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.application.dto.response.TokenResponse;
+import ecom.keycloakgw.application.dto.response.UserResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoDeserializationBenchmark {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final byte[] tokenResponse = Payloads.TOKEN_RESPONSE.getBytes(StandardCharsets.UTF_8);
+    private final byte[] introspectResponse = Payloads.INTROSPECT_RESPONSE.getBytes(StandardCharsets.UTF_8);
+    private final byte[] userResponse = Payloads.USER_RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public TokenResponse tokenResponse() {
+        return jsonMapper.readValue(tokenResponse, TokenResponse.class);
+    }
+
+    @Benchmark
+    public IntrospectResponse introspectResponse() {
+        return jsonMapper.readValue(introspectResponse, IntrospectResponse.class);
+    }
+
+    @Benchmark
+    public UserResponse userResponse() {
+        return jsonMapper.readValue(userResponse, UserResponse.class);
+    }
+}
@@ -0,0 +1,40 @@
+package ecom.keycloakgw.benchmark;
+
+import ecom.keycloakgw.application.service.UserService;
+import ecom.keycloakgw.infrastructure.config.GatewayProperties;
+import ecom.keycloakgw.infrastructure.service.UserServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractTokenBenchmark {
+
+    private final UserService userService = new UserServiceImpl(
+            null, null, null, null, null, null, null, new GatewayProperties());
+    private final String bearer = "Bearer " + Payloads.ACCESS_TOKEN;
+    private final String bare = Payloads.ACCESS_TOKEN;
+
+    @Benchmark
+    public String bearerHeader() {
+        return userService.extractToken(bearer);
+    }
+
+    @Benchmark
+    public String bareToken() {
+        return userService.extractToken(bare);
+    }
+}
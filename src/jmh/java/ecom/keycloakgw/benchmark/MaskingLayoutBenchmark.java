@@ -0,0 +1,88 @@
+package ecom.keycloakgw.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ecom.keycloakgw.infrastructure.logging.LogMasker;
+import ecom.keycloakgw.infrastructure.logging.MaskedLoggingEvent;
+import ecom.log.pattern.MaskingPatternLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The regex layout from logging-common, which masks the rendered line in every appender,
+ * against masking the event once and rendering it with a plain layout, on lines shaped
+ * like the gateway's own logs and with the mask keys from logback-spring.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskingLayoutBenchmark {
+
+    private static final List<String> KEYS = List.of("password", "credential", "cardNumber", "otp");
+    private static final String PATTERN = "[%d{yyyy-MM-dd HH:mm:ss.SSS}] [%-20.20logger{36}] [%-20.20t] "
+            + "[TraceId:%-15.15X{traceId}] [SpanId:%-12.12X{spanId}] [X-Request-Id:%-36.36X{requestId}] "
+            + "[userId:%-12.12X{userId}] %m%n";
+
+    private static final Map<String, String> MESSAGES = Map.of(
+            "plain", "Calling Keycloak user login: POST http://localhost:8080/realms/ecom/protocol/openid-connect/token",
+            "loginBody", "Request body: {\"username\":\"alice\",\"password\":\"s3cr3t-Passw0rd\",\"email\":\"alice@example.com\"}",
+            "userResponse", "Keycloak response: " + Payloads.USER_RESPONSE,
+            "tokenResponse", "Keycloak response: " + Payloads.TOKEN_RESPONSE);
+
+    @Param({"plain", "loginBody", "userResponse", "tokenResponse"})
+    private String line;
+
+    private PatternLayout regexLayout;
+    private PatternLayout plainLayout;
+    private LogMasker masker;
+    private LoggingEvent event;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = new LoggerContext();
+        MaskingPatternLayout regex = new MaskingPatternLayout();
+        KEYS.forEach(regex::addMaskPattern);
+        regexLayout = regex;
+        plainLayout = new PatternLayout();
+        for (PatternLayout layout : List.of(regexLayout, plainLayout)) {
+            layout.setContext(context);
+            layout.setPattern(PATTERN);
+            layout.start();
+        }
+        masker = LogMasker.of(KEYS);
+
+        Logger logger = context.getLogger("ecom.keycloakgw.infrastructure.client.KeycloakUserClient");
+        event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, MESSAGES.get(line), null, null);
+        event.setThreadName("reactor-http-epoll-3");
+        event.setMDCPropertyMap(Map.of("requestId", "0b1c2d3e-4f5a-6b7c-8d9e-0f1a2b3c4d5e", "userId", "alice"));
+    }
+
+    @Benchmark
+    public String regexPerKey() {
+        return regexLayout.doLayout(event);
+    }
+
+    @Benchmark
+    public String maskOnce() {
+        return plainLayout.doLayout(MaskedLoggingEvent.of(masker, event));
+    }
+}
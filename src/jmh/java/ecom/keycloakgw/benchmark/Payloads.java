@@ -0,0 +1,42 @@
+package ecom.keycloakgw.benchmark;
+
+/**
+ * Response bodies shaped like those returned by Keycloak 26 for the ecom realm.
+ */
+final class Payloads {
+
+    static final String ACCESS_TOKEN = "eyJhbGciOiJSUzI1NiIsInR5cCIgOiAiSldUIiwia2lkIiA6ICJ3d2F4SEp2b1lNSDBGVnJ5NjBwV1RrMzRfZGtyRjNwV3NJNF9mYnNBdTFjIn0"
+            + ".eyJleHAiOjE4OTM0NTYwMDAsImlhdCI6MTcwMDAwMDAwMCwianRpIjoiMWIyYzNkNGUtNWY2YS03YjhjLTlkMGUtMWYyYTNiNGM1ZDZlIiwiaXNzIjoi"
+            + "aHR0cDovL2xvY2FsaG9zdDo4MDgwL3JlYWxtcy9lY29tIiwiYXVkIjoiYWNjb3VudCIsInN1YiI6IjRhNWI2YzdkLTExMTEtMjIyMi0zMzMzLTQ0NDQ1NTU1"
+            + "NjY2NiIsInR5cCI6IkJlYXJlciIsImF6cCI6ImVjb20tY2xpZW50Iiwic2lkIjoiOWU4ZDdjNmItNWE0Zi0zZTJkLTFjMGItYTk4NzY1NDMyMTBmIiwic2Nv"
+            + "cGUiOiJwcm9maWxlIGVtYWlsIiwicHJlZmVycmVkX3VzZXJuYW1lIjoiYWxpY2UifQ"
+            + ".Q2FsbGVkIG91dCBvbmx5IGZvciBzaXplOiBhIDI1Ni1ieXRlIFJTMjU2IHNpZ25hdHVyZSBpcyB0aGlzIGxvbmcgb25jZSBiYXNlNjR1cmwgZW5jb2RlZC4"
+            + "uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4u"
+            + "Li4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4uLi4";
+
+    static final String TOKEN_RESPONSE = """
+            {"access_token":"%s","expires_in":300,"refresh_expires_in":1800,"refresh_token":"%s",\
+            "token_type":"Bearer","not-before-policy":0,"session_state":"9e8d7c6b-5a4f-3e2d-1c0b-a9876543210f",\
+            "scope":"profile email"}""".formatted(ACCESS_TOKEN, ACCESS_TOKEN);
+
+    static final String INTROSPECT_RESPONSE = """
+            {"exp":1893456000,"iat":1700000000,"jti":"1b2c3d4e-5f6a-7b8c-9d0e-1f2a3b4c5d6e",\
+            "iss":"http://localhost:8080/realms/ecom","aud":"account","sub":"4a5b6c7d-1111-2222-3333-444455556666",\
+            "typ":"Bearer","azp":"ecom-client","sid":"9e8d7c6b-5a4f-3e2d-1c0b-a9876543210f","acr":"1",\
+            "allowed-origins":["http://localhost:3000"],\
+            "realm_access":{"roles":["default-roles-ecom","offline_access","uma_authorization","CUSTOMER"]},\
+            "resource_access":{"account":{"roles":["manage-account","manage-account-links","view-profile"]}},\
+            "scope":"profile email","email_verified":true,"name":"Alice Nguyen","preferred_username":"alice",\
+            "given_name":"Alice","family_name":"Nguyen","email":"alice@example.com","client_id":"ecom-client",\
+            "username":"alice","token_type":"Bearer","active":true}""";
+
+    static final String USER_RESPONSE = """
+            {"id":"4a5b6c7d-1111-2222-3333-444455556666","username":"alice","firstName":"Alice","lastName":"Nguyen",\
+            "email":"alice@example.com","emailVerified":true,"createdTimestamp":1700000000123,"enabled":true,\
+            "totp":false,"disableableCredentialTypes":[],"requiredActions":[],"notBefore":0,\
+            "attributes":{"locale":["en"],"phone":["+84 90 000 0000"]},\
+            "access":{"manageGroupMembership":true,"view":true,"mapRoles":true,"impersonate":false,"manage":true}}""";
+
+    private Payloads() {
+    }
+}
@@ -0,0 +1,232 @@
+package ecom.keycloakgw.benchmark;
+
+import ecom.keycloakgw.infrastructure.client.FormBody;
+import ecom.keycloakgw.infrastructure.client.KeycloakEndpoints;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Outbound request construction for introspection and user lookups: the previous
+ * {@code String.format} + template expansion + {@code fromFormData} path against the
+ * precompiled {@link KeycloakEndpoints} + {@link FormBody} path. Run with {@code -prof gc}
+ * and compare {@code gc.alloc.rate.norm} (bytes per operation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestConstructionBenchmark {
+
+    private static final String TOKEN = "eyJhbGciOiJSUzI1NiIsInR5cCIgOiAiSldUIiwia2lkIiA6ICJrMSJ9"
+            + ".eyJleHAiOjE4OTM0NTYwMDAsImlhdCI6MTcwMDAwMDAwMCwic3ViIjoiNGE1YjZjN2QiLCJhenAiOiJlY29tLWNsaWVudCJ9"
+            + ".c2lnbmF0dXJlLXNpZ25hdHVyZS1zaWduYXR1cmUtc2lnbmF0dXJlLXNpZ25hdHVyZQ";
+    private static final String USER_ID = "4a5b6c7d-1111-2222-3333-444455556666";
+    private static final FormBody INTROSPECT_FORM = FormBody.builder().field("token").build();
+
+    private KeycloakProperties properties;
+    private KeycloakEndpoints endpoints;
+    private DefaultUriBuilderFactory uriBuilderFactory;
+    private BodyInserter.Context context;
+    private DataBufferFactory bufferFactory;
+
+    @Setup
+    public void setUp() {
+        properties = new KeycloakProperties();
+        properties.setBaseUrl("http://localhost:8080");
+        KeycloakProperties.Master master = new KeycloakProperties.Master();
+        master.setAdminRealm("master");
+        master.setAdminClientId("admin-cli");
+        master.setUrl(new KeycloakProperties.Master.UrlMaster());
+        master.getUrl().setAdminToken("/realms/%s/protocol/openid-connect/token");
+        properties.setMaster(master);
+        KeycloakProperties.Ecom ecom = new KeycloakProperties.Ecom();
+        ecom.setEcomRealm("ecom");
+        ecom.setEcomClientId("ecom-client");
+        ecom.setEcomClientSecret("secret");
+        KeycloakProperties.Ecom.UrlEcom url = new KeycloakProperties.Ecom.UrlEcom();
+        url.setCreateUser("/admin/realms/%s/users");
+        url.setGetUserById("/admin/realms/%s/users/%s");
+        url.setGetRealmRole("/admin/realms/%s/roles/%s");
+        url.setAssignRealmRole("/admin/realms/%s/users/%s/role-mappings/realm");
+        url.setUserLogin("/realms/%s/protocol/openid-connect/token");
+        url.setValidateToken("/realms/%s/protocol/openid-connect/token/introspect");
+        url.setLogout("/realms/%s/protocol/openid-connect/logout");
+        url.setResetPassword("/admin/realms/%s/users/%s/reset-password");
+        url.setJwks("/realms/%s/protocol/openid-connect/certs");
+        ecom.setUrl(url);
+        properties.setEcom(ecom);
+
+        endpoints = new KeycloakEndpoints(properties);
+        uriBuilderFactory = new DefaultUriBuilderFactory(properties.getBaseUrl());
+        List<HttpMessageWriter<?>> writers = ExchangeStrategies.withDefaults().messageWriters();
+        context = new BodyInserter.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return writers;
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Map.of();
+            }
+        };
+        bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    }
+
+    @Benchmark
+    public URI userUriFormat() {
+        String url = String.format(properties.getEcom().getUrl().getGetUserById(),
+                properties.getEcom().getEcomRealm(), USER_ID);
+        return uriBuilderFactory.expand(url);
+    }
+
+    @Benchmark
+    public URI userUriPrecompiled() {
+        return endpoints.userById(USER_ID);
+    }
+
+    @Benchmark
+    public int introspectFormData() {
+        String url = String.format(properties.getEcom().getUrl().getValidateToken(),
+                properties.getEcom().getEcomRealm());
+        uriBuilderFactory.expand(url);
+        return write(BodyInserters.fromFormData("client_id", properties.getEcom().getEcomClientId())
+                .with("client_secret", properties.getEcom().getEcomClientSecret())
+                .with("token", TOKEN));
+    }
+
+    @Benchmark
+    public int introspectFormBody() {
+        endpoints.introspect();
+        endpoints.clientAuthorization();
+        return write(INTROSPECT_FORM.with(TOKEN));
+    }
+
+    private int write(BodyInserter<?, ? super ClientHttpRequest> inserter) {
+        CountingMessage message = new CountingMessage(bufferFactory);
+        inserter.insert(message, context).block();
+        return message.written;
+    }
+
+    /**
+     * Output message that counts and releases what is written, standing in for the
+     * Reactor Netty request.
+     */
+    private static final class CountingMessage implements ClientHttpRequest {
+
+        private final DataBufferFactory bufferFactory;
+        private final HttpHeaders headers = new HttpHeaders();
+        private int written;
+
+        CountingMessage(DataBufferFactory bufferFactory) {
+            this.bufferFactory = bufferFactory;
+        }
+
+        @Override
+        public DataBufferFactory bufferFactory() {
+            return bufferFactory;
+        }
+
+        @Override
+        public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return Flux.from(body)
+                    .doOnNext(buffer -> {
+                        written += buffer.readableByteCount();
+                        DataBufferUtils.release(buffer);
+                    })
+                    .then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMap(Flux::from));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.empty();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return HttpMethod.POST;
+        }
+
+        @Override
+        public URI getURI() {
+            return URI.create("http://localhost");
+        }
+
+        @Override
+        public MultiValueMap<String, HttpCookie> getCookies() {
+            return new LinkedMultiValueMap<>();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return Map.of();
+        }
+
+        @Override
+        public <T> T getNativeRequest() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
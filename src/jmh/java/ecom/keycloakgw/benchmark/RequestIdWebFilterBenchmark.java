@@ -0,0 +1,71 @@
+package ecom.keycloakgw.benchmark;
+
+import ecom.keycloakgw.infrastructure.filter.RequestIdGenerator;
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestIdWebFilterBenchmark {
+
+    private final RequestIdWebFilter filter = new RequestIdWebFilter();
+    private final WebFilterChain chain = exchange -> Mono.empty();
+
+    private MockServerWebExchange withoutRequestId;
+    private MockServerWebExchange withRequestId;
+
+    /**
+     * Exchanges are reused across invocations: building a mock exchange costs far more
+     * than the filter, and the filter only overwrites the same header and attribute.
+     */
+    @Setup
+    public void setUp() {
+        withoutRequestId = MockServerWebExchange.from(
+                MockServerHttpRequest.post("/api/v1/users/validate-token"));
+        withRequestId = MockServerWebExchange.from(
+                MockServerHttpRequest.post("/api/v1/users/validate-token")
+                        .header(RequestIdWebFilter.REQUEST_ID_HEADER, "0af7651916cd43dd8448eb211c80319c"));
+    }
+
+    @Benchmark
+    public Object generatedRequestId() {
+        filter.filter(withoutRequestId, chain).block();
+        return withoutRequestId.getAttributes().get(RequestIdWebFilter.REQUEST_ID_KEY);
+    }
+
+    @Benchmark
+    public Object propagatedRequestId() {
+        filter.filter(withRequestId, chain).block();
+        return withRequestId.getAttributes().get(RequestIdWebFilter.REQUEST_ID_KEY);
+    }
+
+    @Benchmark
+    public String uuidId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Benchmark
+    public String generatorId() {
+        return RequestIdGenerator.requestId();
+    }
+}
@@ -0,0 +1,59 @@
+package ecom.keycloakgw.benchmark;
+
+import ecom.keycloakgw.api.passthrough.TokenResponseSplicer;
+import ecom.keycloakgw.application.dto.ApiResponse;
+import ecom.keycloakgw.application.dto.response.TokenResponse;
+import ecom.keycloakgw.infrastructure.json.JsonCodecs;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Keycloak token response turned into the login envelope: decoded to
+ * {@link TokenResponse} and encoded inside {@link ApiResponse}, against the splice. The
+ * splice copies the body into a pooled Netty buffer first, as the client would have
+ * received it, and that copy is included in its score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenPassthroughBenchmark {
+
+    private static final String REQUEST_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final byte[] BODY = Payloads.TOKEN_RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final TokenResponseSplicer splicer = new TokenResponseSplicer(new JsonCodecs(jsonMapper));
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    @Benchmark
+    public byte[] decodeAndEncode() {
+        TokenResponse token = jsonMapper.readValue(BODY, TokenResponse.class);
+        return jsonMapper.writeValueAsBytes(ApiResponse.success(REQUEST_ID, token));
+    }
+
+    @Benchmark
+    public int splice() {
+        DataBuffer envelope = splicer.splice(factory.allocateBuffer(BODY.length).write(BODY), REQUEST_ID);
+        int length = envelope.readableByteCount();
+        DataBufferUtils.release(envelope);
+        return length;
+    }
+}
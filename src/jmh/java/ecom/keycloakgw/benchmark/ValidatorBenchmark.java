@@ -0,0 +1,80 @@
+package ecom.keycloakgw.benchmark;
+
+import ecom.keycloakgw.application.dto.request.CreateUserRequest;
+import ecom.keycloakgw.application.dto.request.UserLoginRequest;
+import ecom.keycloakgw.application.validator.impl.UserIdValidate;
+import ecom.keycloakgw.application.validator.impl.UserLoginValidate;
+import ecom.keycloakgw.application.validator.impl.UserRegisterValidate;
+import ecom.keycloakgw.domain.exception.BusinessException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Valid requests measure the checks alone; the rejected case includes building the
+ * {@link BusinessException} and the warning log line, which is what a bad request costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private final UserRegisterValidate registerValidator = new UserRegisterValidate();
+    private final UserLoginValidate loginValidator = new UserLoginValidate();
+    private final UserIdValidate userIdValidator = new UserIdValidate();
+
+    private final CreateUserRequest validRegistration = CreateUserRequest.builder()
+            .username("alice")
+            .password("correct-horse-battery-staple")
+            .email("alice@example.com")
+            .firstName("Alice")
+            .lastName("Nguyen")
+            .build();
+    private final UserLoginRequest validLogin = UserLoginRequest.builder()
+            .username("alice")
+            .password("correct-horse-battery-staple")
+            .build();
+    private final UserLoginRequest loginWithoutPassword = UserLoginRequest.builder()
+            .username("alice")
+            .build();
+
+    @Benchmark
+    public CreateUserRequest registerValid() {
+        registerValidator.validate(validRegistration);
+        return validRegistration;
+    }
+
+    @Benchmark
+    public UserLoginRequest loginValid() {
+        loginValidator.validate(validLogin);
+        return validLogin;
+    }
+
+    @Benchmark
+    public String userIdValid() {
+        String userId = "4a5b6c7d-1111-2222-3333-444455556666";
+        userIdValidator.validate(userId);
+        return userId;
+    }
+
+    @Benchmark
+    public Object loginRejected() {
+        try {
+            loginValidator.validate(loginWithoutPassword);
+            return null;
+        } catch (BusinessException ex) {
+            return ex;
+        }
+    }
+}
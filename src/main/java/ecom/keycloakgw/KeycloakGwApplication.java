@@ -1,21 +1,28 @@
 package ecom.keycloakgw;
 
-import ecom.log.aspect.AutoLogAspect;
+import ecom.keycloakgw.infrastructure.config.GatewayProperties;
+import ecom.keycloakgw.infrastructure.logging.InvocationLogAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Role;
 
 @SpringBootApplication
-@EnableAspectJAutoProxy
 public class KeycloakGwApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(KeycloakGwApplication.class, args);
     }
 
+    /**
+     * Static and infrastructure so the auto-proxy creator can pick it up without creating
+     * this class or the properties bean before the post-processors are in place.
+     */
     @Bean
-    public AutoLogAspect autoLogAspect() {
-        return new AutoLogAspect();
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static InvocationLogAdvisor invocationLogAdvisor(ObjectProvider<GatewayProperties> gatewayProperties) {
+        return new InvocationLogAdvisor(() -> gatewayProperties.getObject().getInvocationLogging());
     }
 }
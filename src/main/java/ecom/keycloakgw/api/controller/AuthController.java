@@ -5,7 +5,8 @@ import ecom.keycloakgw.application.dto.request.AdminLoginRequest;
 import ecom.keycloakgw.application.dto.response.TokenResponse;
 import ecom.keycloakgw.application.service.AuthService;
 import ecom.keycloakgw.domain.utils.BaseController;
-import ecom.log.annotation.UseAspect;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.keycloakgw.infrastructure.logging.LogInvocations;
 import ecom.log.utils.LoggerUtils;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -16,7 +17,7 @@ import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/v1/auth")
-@UseAspect
+@LogInvocations
 public class AuthController extends BaseController {
 
     private final AuthService authService;
@@ -31,10 +32,11 @@ public class AuthController extends BaseController {
             ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
-
-        LoggerUtils.info(AuthController.class, "Admin login request received, username={}", request.getUsername());
-        return authService.adminLogin(request)
-                .map(tokenResponse -> ApiResponse.success(requestId, tokenResponse));
+        return ContextMdc.deferWithMdc(() -> {
+            LoggerUtils.info(AuthController.class, "Admin login request received, username={}", request.getUsername());
+            return authService.adminLogin(request)
+                    .map(tokenResponse -> ApiResponse.success(requestId, tokenResponse));
+        });
     }
 
 
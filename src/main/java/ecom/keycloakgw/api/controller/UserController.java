@@ -6,16 +6,22 @@ import ecom.keycloakgw.application.dto.response.*;
 import ecom.keycloakgw.application.service.UserService;
 import ecom.keycloakgw.domain.utils.BaseController;
 import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
-import ecom.log.annotation.UseAspect;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.keycloakgw.infrastructure.logging.LogInvocations;
 import ecom.log.utils.LoggerUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/users")
-@UseAspect
+@LogInvocations
 public class UserController extends BaseController {
 
     private final UserService userService;
@@ -32,8 +38,8 @@ public class UserController extends BaseController {
             ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
-        return userService.registerUser(request, authorization)
-                .map(result -> ApiResponse.success(requestId, result));
+        return ContextMdc.deferWithMdc(() -> userService.registerUser(request, authorization)
+                .map(result -> ApiResponse.success(requestId, result)));
     }
 
 
@@ -43,8 +49,16 @@ public class UserController extends BaseController {
             ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
-        return userService.userLogin(request)
-                .map(token -> ApiResponse.success(requestId, token));
+        return ContextMdc.deferWithMdc(() -> userService.userLogin(request)
+                .map(token -> ApiResponse.success(requestId, token)));
+    }
+
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserResponse> exportUsers(
+            @RequestHeader("Authorization") String authorization) {
+
+        return ContextMdc.subscribeWithMdc(Flux.defer(() -> userService.exportUsers(authorization)));
     }
 
 
@@ -55,8 +69,9 @@ public class UserController extends BaseController {
             ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
-        return userService.getUserDetail(userId, authorization)
-                .map(user -> ApiResponse.success(requestId, user));
+        return ContextMdc.deferWithMdc(() -> userService.getUserDetail(userId, authorization)
+                .map(user -> ApiResponse.success(requestId, user)))
+                .contextWrite(Context.of(ContextMdc.USER_ID_KEY, userId));
     }
 
 
@@ -68,8 +83,9 @@ public class UserController extends BaseController {
             ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
-        return userService.updateUser(userId, request, authorization)
-                .thenReturn(ApiResponse.success(requestId, "User updated successfully"));
+        return ContextMdc.deferWithMdc(() -> userService.updateUser(userId, request, authorization)
+                .thenReturn(ApiResponse.success(requestId, "User updated successfully")))
+                .contextWrite(Context.of(ContextMdc.USER_ID_KEY, userId));
     }
 
 
@@ -81,8 +97,9 @@ public class UserController extends BaseController {
             ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
-        return userService.updatePassword(userId, request, authorization)
-                .thenReturn(ApiResponse.success(requestId, "Password updated successfully"));
+        return ContextMdc.deferWithMdc(() -> userService.updatePassword(userId, request, authorization)
+                .thenReturn(ApiResponse.success(requestId, "Password updated successfully")))
+                .contextWrite(Context.of(ContextMdc.USER_ID_KEY, userId));
     }
 
 
@@ -92,8 +109,19 @@ public class UserController extends BaseController {
             ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
-        return userService.validateToken(request)
-                .map(result -> ApiResponse.success(requestId, result));
+        return ContextMdc.deferWithMdc(() -> userService.validateToken(request)
+                .map(result -> ApiResponse.success(requestId, result)));
+    }
+
+
+    @PostMapping("/validate-token/batch")
+    public Mono<ApiResponse<List<IntrospectResponse>>> validateTokens(
+            @RequestBody ValidateTokenBatchRequest request,
+            ServerWebExchange exchange) {
+
+        String requestId = getRequestId(exchange);
+        return ContextMdc.deferWithMdc(() -> userService.validateTokens(request)
+                .map(results -> ApiResponse.success(requestId, results)));
     }
 
 
@@ -103,8 +131,8 @@ public class UserController extends BaseController {
             ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
-        return userService.logout(request)
-                .thenReturn(ApiResponse.success(requestId, "Logged out successfully"));
+        return ContextMdc.deferWithMdc(() -> userService.logout(request)
+                .thenReturn(ApiResponse.success(requestId, "Logged out successfully")));
     }
 
 
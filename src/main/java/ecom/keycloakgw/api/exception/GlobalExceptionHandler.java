@@ -4,7 +4,10 @@ import ecom.keycloakgw.application.dto.ApiResponse;
 import ecom.keycloakgw.domain.exception.BusinessException;
 import ecom.keycloakgw.domain.exception.ErrorCode;
 import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
 import ecom.log.utils.LoggerUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -14,21 +17,28 @@ import org.springframework.web.server.ServerWebExchange;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<ApiResponse<Void>> handleBusinessException(
             BusinessException ex, ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
+        countError(ex.getErrorCode());
 
-        LoggerUtils.error(GlobalExceptionHandler.class,
-                "BusinessException: code={}, message={}", ex.getErrorCode().getCode(), ex.getMessage());
+        ContextMdc.run(exchange.getAttributes(), () -> LoggerUtils.error(GlobalExceptionHandler.class,
+                "BusinessException: code={}, message={}", ex.getErrorCode().getCode(), ex.getMessage()));
 
         ApiResponse<Void> response = ApiResponse.error(
                 requestId,
                 ex.getErrorCode().getCode(),
                 ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.OK).body(response);
+        return ResponseEntity.status(statusOf(ex.getErrorCode())).body(response);
     }
 
     @ExceptionHandler(Exception.class)
@@ -36,8 +46,9 @@ public class GlobalExceptionHandler {
             Exception ex, ServerWebExchange exchange) {
 
         String requestId = getRequestId(exchange);
-        LoggerUtils.error(GlobalExceptionHandler.class,
-                "Unexpected error: {}", ex.getMessage(), ex);
+        countError(ErrorCode.INTERNAL_ERROR);
+        ContextMdc.run(exchange.getAttributes(), () -> LoggerUtils.error(GlobalExceptionHandler.class,
+                "Unexpected error: {}", ex.getMessage(), ex));
 
         ApiResponse<Void> response = ApiResponse.error(
                 requestId,
@@ -46,6 +57,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
+    private static HttpStatus statusOf(ErrorCode errorCode) {
+        return switch (errorCode) {
+            case UNAUTHORIZED -> HttpStatus.UNAUTHORIZED;
+            case FORBIDDEN -> HttpStatus.FORBIDDEN;
+            default -> HttpStatus.OK;
+        };
+    }
+
+    private void countError(ErrorCode errorCode) {
+        Counter.builder("gateway.errors")
+                .tag("code", errorCode.getCode())
+                .tag("error", errorCode.name())
+                .register(meterRegistry)
+                .increment();
+    }
+
     private String getRequestId(ServerWebExchange exchange) {
         return (String) exchange.getAttributes()
                 .getOrDefault(RequestIdWebFilter.REQUEST_ID_KEY, "");
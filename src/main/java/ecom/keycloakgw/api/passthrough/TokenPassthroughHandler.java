@@ -0,0 +1,80 @@
+package ecom.keycloakgw.api.passthrough;
+
+import ecom.keycloakgw.api.exception.GlobalExceptionHandler;
+import ecom.keycloakgw.application.dto.ApiResponse;
+import ecom.keycloakgw.application.dto.request.AdminLoginRequest;
+import ecom.keycloakgw.application.dto.request.UserLoginRequest;
+import ecom.keycloakgw.application.service.AuthService;
+import ecom.keycloakgw.application.service.UserService;
+import ecom.keycloakgw.domain.exception.BusinessException;
+import ecom.keycloakgw.domain.utils.BaseController;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Functional twins of the user and admin login endpoints that answer with
+ * {@link TokenResponseSplicer} output instead of decoding and re-encoding the token.
+ * Errors go through {@link GlobalExceptionHandler} so failures look the same as on the
+ * annotated controllers.
+ */
+public class TokenPassthroughHandler {
+
+    private final UserService userService;
+    private final AuthService authService;
+    private final TokenResponseSplicer splicer;
+    private final GlobalExceptionHandler exceptionHandler;
+
+    public TokenPassthroughHandler(UserService userService, AuthService authService,
+                                   TokenResponseSplicer splicer, GlobalExceptionHandler exceptionHandler) {
+        this.userService = userService;
+        this.authService = authService;
+        this.splicer = splicer;
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    public Mono<ServerResponse> userLogin(ServerRequest request) {
+        return respond(request, body(request, UserLoginRequest.class)
+                .flatMap(login -> ContextMdc.deferWithMdc(() -> userService.userLoginBody(login))));
+    }
+
+    public Mono<ServerResponse> adminLogin(ServerRequest request) {
+        return respond(request, body(request, AdminLoginRequest.class)
+                .flatMap(login -> ContextMdc.deferWithMdc(() -> authService.adminLoginBody(login))));
+    }
+
+    private static <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("No request body")));
+    }
+
+    private Mono<ServerResponse> respond(ServerRequest request, Mono<DataBuffer> token) {
+        ServerWebExchange exchange = request.exchange();
+        String requestId = BaseController.getRequestId(exchange);
+        return token
+                .map(upstream -> splicer.splice(upstream, requestId))
+                .flatMap(envelope -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(BodyInserters.fromDataBuffers(Mono.just(envelope))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).build()))
+                .onErrorResume(BusinessException.class,
+                        ex -> toResponse(exceptionHandler.handleBusinessException(ex, exchange)))
+                .onErrorResume(Exception.class,
+                        ex -> toResponse(exceptionHandler.handleGenericException(ex, exchange)))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private static Mono<ServerResponse> toResponse(ResponseEntity<ApiResponse<Void>> entity) {
+        return ServerResponse.status(entity.getStatusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(entity.getBody());
+    }
+}
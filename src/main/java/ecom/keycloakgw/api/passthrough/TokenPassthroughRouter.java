@@ -0,0 +1,46 @@
+package ecom.keycloakgw.api.passthrough;
+
+import ecom.keycloakgw.api.exception.GlobalExceptionHandler;
+import ecom.keycloakgw.application.service.AuthService;
+import ecom.keycloakgw.application.service.UserService;
+import ecom.keycloakgw.infrastructure.json.JsonCodecs;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Routes the two login endpoints to {@link TokenPassthroughHandler} when
+ * {@code gateway.passthrough.enabled} is set. Router functions are mapped ahead of
+ * annotated controllers, so the controller methods stay in place and take over again
+ * when the flag is off.
+ * <p>
+ * {@code /validate-token} is not routed here: it is answered from the local JWT check or
+ * the introspection cache, so there is usually no upstream body to splice.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway.passthrough", name = "enabled", havingValue = "true")
+public class TokenPassthroughRouter {
+
+    @Bean
+    public TokenResponseSplicer tokenResponseSplicer(JsonCodecs jsonCodecs) {
+        return new TokenResponseSplicer(jsonCodecs);
+    }
+
+    @Bean
+    public TokenPassthroughHandler tokenPassthroughHandler(UserService userService, AuthService authService,
+                                                           TokenResponseSplicer tokenResponseSplicer,
+                                                           GlobalExceptionHandler globalExceptionHandler) {
+        return new TokenPassthroughHandler(userService, authService, tokenResponseSplicer, globalExceptionHandler);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> tokenPassthroughRoutes(TokenPassthroughHandler handler) {
+        return RouterFunctions.route()
+                .POST("/api/v1/users/login", handler::userLogin)
+                .POST("/api/v1/auth/admin/login", handler::adminLogin)
+                .build();
+    }
+}
@@ -0,0 +1,382 @@
+package ecom.keycloakgw.api.passthrough;
+
+import ecom.keycloakgw.application.dto.ApiResponse;
+import ecom.keycloakgw.application.dto.response.TokenResponse;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.domain.utils.CoarseClock;
+import ecom.keycloakgw.domain.utils.EApiStatus;
+import ecom.keycloakgw.infrastructure.json.JsonCodecs;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Builds the {@code ApiResponse<TokenResponse>} success envelope directly from Keycloak's
+ * token response bytes, producing exactly what Jackson writes for the decoded
+ * {@link TokenResponse}. The envelope comes from pre-encoded fragments, and {@code data}
+ * is reassembled in {@link TokenResponse} field order from the raw value bytes of the
+ * upstream body, so no strings or DTOs are created.
+ * <p>
+ * Only bodies whose bytes Jackson would write back unchanged take that path: a flat
+ * object, plain ASCII strings without escapes, canonical integers that fit the field.
+ * Anything else (escapes, nested values, duplicate token fields, malformed JSON) is
+ * decoded and encoded with the mapper as before.
+ */
+public class TokenResponseSplicer {
+
+    private enum EKind {
+        STRING, LONG, INT
+    }
+
+    private record Field(byte[] name, byte[] key, EKind kind) {
+
+        static Field of(String name, EKind kind) {
+            return new Field(ascii(name), ascii("\"" + name + "\":"), kind);
+        }
+    }
+
+    /** Declaration order of {@link TokenResponse}, which is the order Jackson writes. */
+    private static final Field[] FIELDS = {
+            Field.of("access_token", EKind.STRING),
+            Field.of("expires_in", EKind.LONG),
+            Field.of("refresh_token", EKind.STRING),
+            Field.of("refresh_expires_in", EKind.LONG),
+            Field.of("token_type", EKind.STRING),
+            Field.of("scope", EKind.STRING),
+            Field.of("not-before-policy", EKind.INT),
+            Field.of("session_state", EKind.STRING)};
+
+    private static final byte[] REQUEST_ID_KEY = ascii("{\"requestId\":");
+    private static final byte[] TIMESTAMP_KEY = ascii(",\"timestamp\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[][] LITERALS = {NULL, ascii("true"), ascii("false")};
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = ONES * 0x80;
+    private static final long QUOTES = ONES * '"';
+    private static final long BACKSLASHES = ONES * '\\';
+    private static final long CONTROL_LIMIT = ONES * 0x20;
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_INT_DIGITS = 9;
+
+    private record EncodedTime(LocalDateTime time, byte[] json) {
+    }
+
+    private final JsonMapper jsonMapper;
+    private final ObjectReader tokenReader;
+    private final ObjectWriter envelopeWriter;
+    private final byte[] statusToData;
+    private volatile EncodedTime lastTime = new EncodedTime(null, null);
+
+    public TokenResponseSplicer(JsonCodecs jsonCodecs) {
+        this.jsonMapper = jsonCodecs.getMapper();
+        this.tokenReader = jsonCodecs.reader(TokenResponse.class);
+        this.envelopeWriter = jsonCodecs.envelopeWriter(TokenResponse.class);
+        ByteArrayOutputStream middle = new ByteArrayOutputStream();
+        middle.writeBytes(ascii(",\"status\":"));
+        middle.writeBytes(jsonMapper.writeValueAsBytes(EApiStatus.EXECUTE));
+        middle.writeBytes(ascii(",\"code\":"));
+        middle.writeBytes(jsonMapper.writeValueAsBytes(ErrorCode.SUCCESS.getCode()));
+        middle.writeBytes(ascii(",\"message\":"));
+        middle.writeBytes(jsonMapper.writeValueAsBytes(ErrorCode.SUCCESS.getMessage()));
+        middle.writeBytes(ascii(",\"data\":"));
+        this.statusToData = middle.toByteArray();
+    }
+
+    /**
+     * Returns the JSON of {@code ApiResponse.success(requestId, token)} for the token in
+     * {@code upstream}, which is always released.
+     */
+    public DataBuffer splice(DataBuffer upstream, String requestId) {
+        return splice(upstream, requestId, CoarseClock.now());
+    }
+
+    DataBuffer splice(DataBuffer upstream, String requestId, LocalDateTime timestamp) {
+        try (DataBuffer.ByteBufferIterator buffers = upstream.readableByteBuffers()) {
+            ByteBuffer body = buffers.hasNext() ? buffers.next() : ByteBuffer.allocate(0);
+            if (buffers.hasNext()) {
+                body = ByteBuffer.allocate(upstream.readableByteCount());
+                upstream.toByteBuffer(upstream.readPosition(), body, 0, body.capacity());
+            }
+            // The envelope leaves out a null requestId, which the spliced prefix always writes
+            int[] values = requestId != null ? scan(body) : null;
+            if (values != null) {
+                return write(upstream.factory(), body, values, requestId, timestamp);
+            }
+            byte[] bytes = new byte[body.remaining()];
+            body.get(body.position(), bytes);
+            ApiResponse<TokenResponse> response = ApiResponse.success(
+                    requestId, tokenReader.<TokenResponse>readValue(bytes));
+            response.setTimestamp(timestamp);
+            return upstream.factory().wrap(envelopeWriter.writeValueAsBytes(response));
+        } finally {
+            DataBufferUtils.release(upstream);
+        }
+    }
+
+    private DataBuffer write(DataBufferFactory factory, ByteBuffer body, int[] values,
+                             String requestId, LocalDateTime timestamp) {
+        byte[] id = isPlainAscii(requestId) ? quoted(requestId) : jsonMapper.writeValueAsBytes(requestId);
+        byte[] time = encode(timestamp);
+
+        int size = REQUEST_ID_KEY.length + id.length + statusToData.length + 2
+                + TIMESTAMP_KEY.length + time.length + 1;
+        for (int i = 0; i < FIELDS.length; i++) {
+            int start = values[2 * i];
+            size += (i > 0 ? 1 : 0) + FIELDS[i].key().length
+                    + (start < 0 ? NULL.length : values[2 * i + 1] - start);
+        }
+
+        DataBuffer out = factory.allocateBuffer(size);
+        out.write(REQUEST_ID_KEY).write(id).write(statusToData).write((byte) '{');
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (i > 0) {
+                out.write((byte) ',');
+            }
+            out.write(FIELDS[i].key());
+            int start = values[2 * i];
+            if (start < 0) {
+                out.write(NULL);
+            } else {
+                out.write(body.slice(start, values[2 * i + 1] - start));
+            }
+        }
+        return out.write((byte) '}').write(TIMESTAMP_KEY).write(time).write((byte) '}');
+    }
+
+    /**
+     * Start and end index of each token field's raw value (-1 when absent), or null when
+     * the body must go through the mapper.
+     */
+    static int[] scan(ByteBuffer body) {
+        int end = body.limit();
+        int[] values = new int[FIELDS.length * 2];
+        Arrays.fill(values, -1);
+
+        int i = skipWhitespace(body, body.position(), end);
+        if (i >= end || body.get(i) != '{') {
+            return null;
+        }
+        i = skipWhitespace(body, i + 1, end);
+        if (i < end && body.get(i) == '}') {
+            return skipWhitespace(body, i + 1, end) == end ? values : null;
+        }
+        while (true) {
+            if (i >= end || body.get(i) != '"') {
+                return null;
+            }
+            int keyEnd = stringEnd(body, i + 1, end);
+            if (keyEnd < 0) {
+                return null;
+            }
+            int field = field(body, i + 1, keyEnd);
+            i = skipWhitespace(body, keyEnd + 1, end);
+            if (i >= end || body.get(i) != ':') {
+                return null;
+            }
+            int valueStart = skipWhitespace(body, i + 1, end);
+            int valueEnd = valueEnd(body, valueStart, end);
+            if (valueEnd < 0) {
+                return null;
+            }
+            if (field >= 0) {
+                if (values[2 * field] >= 0 || !fits(body, valueStart, valueEnd, FIELDS[field].kind())) {
+                    return null;
+                }
+                values[2 * field] = valueStart;
+                values[2 * field + 1] = valueEnd;
+            }
+            i = skipWhitespace(body, valueEnd, end);
+            if (i >= end) {
+                return null;
+            }
+            if (body.get(i) == '}') {
+                return skipWhitespace(body, i + 1, end) == end ? values : null;
+            }
+            if (body.get(i) != ',') {
+                return null;
+            }
+            i = skipWhitespace(body, i + 1, end);
+        }
+    }
+
+    /** {@link CoarseClock} hands out one instance per millisecond, so the last encoding is usually reusable. */
+    private byte[] encode(LocalDateTime timestamp) {
+        EncodedTime last = lastTime;
+        if (last.time() == timestamp) {
+            return last.json();
+        }
+        byte[] json = jsonMapper.writeValueAsBytes(timestamp);
+        lastTime = new EncodedTime(timestamp, json);
+        return json;
+    }
+
+    private static int field(ByteBuffer body, int from, int to) {
+        for (int f = 0; f < FIELDS.length; f++) {
+            byte[] name = FIELDS[f].name();
+            if (name.length == to - from && matches(body, from, to, name)) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * End index of a scalar value, or -1 for anything this class leaves to the mapper:
+     * objects, arrays, escaped or non-ASCII strings and malformed values.
+     */
+    private static int valueEnd(ByteBuffer body, int i, int end) {
+        if (i >= end) {
+            return -1;
+        }
+        byte c = body.get(i);
+        if (c == '"') {
+            int close = stringEnd(body, i + 1, end);
+            return close < 0 ? -1 : close + 1;
+        }
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            return numberEnd(body, i, end);
+        }
+        for (byte[] literal : LITERALS) {
+            if (matches(body, i, end, literal)) {
+                return i + literal.length;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index of the closing quote, or -1 if the string has escapes, control or non-ASCII
+     * bytes. Tokens are long, so plain runs are skipped eight bytes at a time; a word that
+     * may hold a special byte is rescanned byte by byte.
+     */
+    private static int stringEnd(ByteBuffer body, int i, int end) {
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            long word = body.getLong(i);
+            long special = ((word - CONTROL_LIMIT) | ((word ^ QUOTES) - ONES)
+                    | ((word ^ BACKSLASHES) - ONES) | word) & HIGH_BITS;
+            if (special != 0) {
+                break;
+            }
+        }
+        for (; i < end; i++) {
+            byte c = body.get(i);
+            if (c == '"') {
+                return i;
+            }
+            if (c < 0x20 || c == '\\') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int numberEnd(ByteBuffer body, int i, int end) {
+        if (body.get(i) == '-') {
+            i++;
+        }
+        int digits = digitsEnd(body, i, end);
+        if (digits == i || (body.get(i) == '0' && digits > i + 1)) {
+            return -1;
+        }
+        i = digits;
+        if (i < end && body.get(i) == '.') {
+            digits = digitsEnd(body, i + 1, end);
+            if (digits == i + 1) {
+                return -1;
+            }
+            i = digits;
+        }
+        if (i < end && (body.get(i) == 'e' || body.get(i) == 'E')) {
+            i++;
+            if (i < end && (body.get(i) == '+' || body.get(i) == '-')) {
+                i++;
+            }
+            digits = digitsEnd(body, i, end);
+            if (digits == i) {
+                return -1;
+            }
+            i = digits;
+        }
+        return i;
+    }
+
+    private static int digitsEnd(ByteBuffer body, int i, int end) {
+        while (i < end && body.get(i) >= '0' && body.get(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /** Whether Jackson would write the value back byte for byte for a field of this kind. */
+    private static boolean fits(ByteBuffer body, int start, int end, EKind kind) {
+        if (end - start == NULL.length && matches(body, start, end, NULL)) {
+            return true;
+        }
+        if (kind == EKind.STRING) {
+            return body.get(start) == '"';
+        }
+        int digitsStart = body.get(start) == '-' ? start + 1 : start;
+        int digits = end - digitsStart;
+        if (digits > (kind == EKind.LONG ? MAX_LONG_DIGITS : MAX_INT_DIGITS)
+                || digitsEnd(body, digitsStart, end) != end) {
+            return false;
+        }
+        return digitsStart == start || body.get(digitsStart) != '0';
+    }
+
+    private static boolean matches(ByteBuffer body, int i, int end, byte[] expected) {
+        if (end - i < expected.length) {
+            return false;
+        }
+        for (int k = 0; k < expected.length; k++) {
+            if (body.get(i + k) != expected[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(ByteBuffer body, int i, int end) {
+        while (i < end) {
+            byte c = body.get(i);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] quoted(String value) {
+        byte[] quoted = new byte[value.length() + 2];
+        quoted[0] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            quoted[i + 1] = (byte) value.charAt(i);
+        }
+        quoted[quoted.length - 1] = '"';
+        return quoted;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -2,6 +2,7 @@ package ecom.keycloakgw.application.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.domain.utils.CoarseClock;
 import ecom.keycloakgw.domain.utils.EApiStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -31,7 +32,7 @@ public class ApiResponse<T> {
                 .code(ErrorCode.SUCCESS.getCode())
                 .message(ErrorCode.SUCCESS.getMessage())
                 .data(data)
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.now())
                 .build();
     }
 
@@ -41,7 +42,7 @@ public class ApiResponse<T> {
                 .status(EApiStatus.FAIL)
                 .code(code)
                 .message(message)
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.now())
                 .build();
     }
 }
@@ -1,5 +1,6 @@
 package ecom.keycloakgw.application.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
@@ -7,6 +8,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -27,4 +30,25 @@ public class IntrospectResponse {
     private String sub;
     private Long exp;
     private Long iat;
+
+    /** Keycloak session id, for logout eviction; read but never written to clients. */
+    @JsonAlias("session_state")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String sid;
+
+    /** Read from Keycloak and local claims for caller checks, never written to clients. */
+    @JsonProperty(value = "realm_access", access = JsonProperty.Access.WRITE_ONLY)
+    private RealmAccess realmAccess;
+
+    public boolean hasRealmRole(String role) {
+        return realmAccess != null && realmAccess.getRoles() != null && realmAccess.getRoles().contains(role);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class RealmAccess {
+        private List<String> roles;
+    }
 }
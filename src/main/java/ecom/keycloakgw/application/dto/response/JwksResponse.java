@@ -0,0 +1,32 @@
+package ecom.keycloakgw.application.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JwksResponse {
+
+    private List<Key> keys;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Key {
+        private String kid;
+        private String kty;
+        private String alg;
+        private String use;
+        private String n;
+        private String e;
+    }
+}
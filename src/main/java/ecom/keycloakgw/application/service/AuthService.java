@@ -2,9 +2,16 @@ package ecom.keycloakgw.application.service;
 
 import ecom.keycloakgw.application.dto.request.AdminLoginRequest;
 import ecom.keycloakgw.application.dto.response.TokenResponse;
+import org.springframework.core.io.buffer.DataBuffer;
 import reactor.core.publisher.Mono;
 
 public interface AuthService {
 
     Mono<TokenResponse> adminLogin(AdminLoginRequest request);
+
+    /**
+     * Same as {@link #adminLogin} but emits Keycloak's response body undecoded; the
+     * caller releases the buffer.
+     */
+    Mono<DataBuffer> adminLoginBody(AdminLoginRequest request);
 }
@@ -2,22 +2,36 @@ package ecom.keycloakgw.application.service;
 
 import ecom.keycloakgw.application.dto.request.*;
 import ecom.keycloakgw.application.dto.response.*;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface UserService {
 
     Mono<CreateUserResponse> registerUser(CreateUserRequest request, String authorization);
 
     Mono<TokenResponse> userLogin(UserLoginRequest request);
 
+    /**
+     * Same as {@link #userLogin} but emits Keycloak's response body undecoded; the
+     * caller releases the buffer.
+     */
+    Mono<DataBuffer> userLoginBody(UserLoginRequest request);
+
     Mono<UserResponse> getUserDetail(String userId, String authorization);
 
+    Flux<UserResponse> exportUsers(String authorization);
+
     Mono<Void> updateUser(String userId, UpdateUserRequest request, String authorization);
 
     Mono<Void> updatePassword(String userId, UpdatePasswordRequest request, String authorization);
 
     Mono<IntrospectResponse> validateToken(ValidateTokenRequest request);
 
+    Mono<List<IntrospectResponse>> validateTokens(ValidateTokenBatchRequest request);
+
     Mono<Void> logout(LogoutRequest request);
 
     default String extractToken(String authorization) {
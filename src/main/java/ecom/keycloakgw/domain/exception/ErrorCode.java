@@ -15,6 +15,10 @@ public enum ErrorCode {
     EMAIL_REQUIRED("006", "Email is required"),
     FIRST_NAME_REQUIRED("007", "First name is required"),
     LAST_NAME_REQUIRED("008", "Last name is required"),
+    KEYCLOAK_UNAVAILABLE("009", "Keycloak service temporarily unavailable"),
+    KEYCLOAK_BUSY("010", "Too many concurrent Keycloak calls"),
+    TOO_MANY_REQUESTS("011", "Too many requests, please retry later"),
+    FORBIDDEN("012", "Forbidden"),
     INTERNAL_ERROR("999", "Internal server error");
 
     private final String code;
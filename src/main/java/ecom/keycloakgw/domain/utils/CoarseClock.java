@@ -0,0 +1,32 @@
+package ecom.keycloakgw.domain.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Millisecond-granular wall clock for response timestamps. Every caller within the same
+ * millisecond gets the same {@link LocalDateTime} instance, so building an envelope costs a
+ * {@link System#currentTimeMillis()} read instead of a zone lookup and a new object.
+ */
+public final class CoarseClock {
+
+    private record Tick(long millis, LocalDateTime time) {
+    }
+
+    private static volatile Tick tick = new Tick(Long.MIN_VALUE, null);
+
+    private CoarseClock() {
+    }
+
+    public static LocalDateTime now() {
+        long millis = System.currentTimeMillis();
+        Tick current = tick;
+        if (current.millis() == millis) {
+            return current.time();
+        }
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        tick = new Tick(millis, time);
+        return time;
+    }
+}
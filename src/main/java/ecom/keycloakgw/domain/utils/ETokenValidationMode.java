@@ -0,0 +1,7 @@
+package ecom.keycloakgw.domain.utils;
+
+public enum ETokenValidationMode {
+    REMOTE,
+    LOCAL,
+    LOCAL_WITH_FALLBACK
+}
@@ -0,0 +1,157 @@
+package ecom.keycloakgw.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.token.Jwt;
+import ecom.keycloakgw.infrastructure.token.TokenDigest;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Introspection results keyed by the SHA-256 digest of the token. Active results live
+ * until the token's {@code exp} (capped by max-ttl), inactive ones for negative-ttl.
+ * Entries are also indexed by the Keycloak session id the result carries, so a logout
+ * can drop every token of that session, and the session is remembered for max-ttl so
+ * late results are not cached.
+ */
+@Component
+public class IntrospectionResultCache {
+
+    private final KeycloakProperties.IntrospectionCache config;
+    private final JsonMapper jsonMapper;
+    private final Cache<String, Entry> results;
+    private final Cache<String, Boolean> revokedSessions;
+    private final ConcurrentHashMap<String, Set<String>> digestsBySession = new ConcurrentHashMap<>();
+
+    public IntrospectionResultCache(KeycloakProperties properties, JsonMapper jsonMapper) {
+        this.config = properties.getIntrospectionCache();
+        this.jsonMapper = jsonMapper;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new ResultExpiry(config.getMaxTtl().toNanos(), config.getNegativeTtl().toNanos()))
+                .removalListener((String digest, Entry entry, RemovalCause cause) -> {
+                    if (entry != null && entry.sessionId() != null) {
+                        unindex(entry.sessionId(), digest);
+                    }
+                })
+                .recordStats()
+                .build();
+        this.revokedSessions = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getMaxTtl())
+                .build();
+    }
+
+    public Mono<IntrospectResponse> get(String token, Function<String, Mono<IntrospectResponse>> loader) {
+        if (!config.isEnabled()) {
+            return loader.apply(token);
+        }
+        String digest = TokenDigest.sha256(token);
+        Entry cached = results.getIfPresent(digest);
+        if (cached != null) {
+            return Mono.just(cached.response());
+        }
+        return loader.apply(token).doOnNext(response -> put(digest, response));
+    }
+
+    public boolean isSessionRevoked(String sessionId) {
+        return sessionId != null && revokedSessions.getIfPresent(sessionId) != null;
+    }
+
+    /**
+     * Drops the cached results of the token's session. Only logout calls this, so the
+     * token is parsed here rather than carried along.
+     */
+    public void evictSession(String token) {
+        results.invalidate(TokenDigest.sha256(token));
+        Jwt jwt = Jwt.parse(token, jsonMapper);
+        String sessionId = jwt != null ? jwt.sessionId() : null;
+        if (sessionId == null) {
+            return;
+        }
+        revokedSessions.put(sessionId, Boolean.TRUE);
+        Set<String> digests = digestsBySession.remove(sessionId);
+        if (digests != null) {
+            results.invalidateAll(digests);
+            LoggerUtils.info(IntrospectionResultCache.class,
+                    "Evicted {} cached introspection results for logged out session", digests.size());
+        }
+    }
+
+    public CacheStats stats() {
+        return results.stats();
+    }
+
+    public long size() {
+        return results.estimatedSize();
+    }
+
+    private void put(String digest, IntrospectResponse response) {
+        String sessionId = response.getSid();
+        if (isSessionRevoked(sessionId)) {
+            return;
+        }
+        results.put(digest, new Entry(response, sessionId));
+        if (sessionId != null) {
+            digestsBySession.compute(sessionId, (key, digests) -> {
+                Set<String> set = digests != null ? digests : ConcurrentHashMap.newKeySet();
+                set.add(digest);
+                return set;
+            });
+            // evictSession marks the session before draining the index; a result that was
+            // in flight meanwhile may have missed both, so look again now it is indexed
+            if (isSessionRevoked(sessionId)) {
+                results.invalidate(digest);
+            }
+        }
+    }
+
+    private void unindex(String sessionId, String digest) {
+        digestsBySession.computeIfPresent(sessionId, (key, digests) -> {
+            digests.remove(digest);
+            return digests.isEmpty() ? null : digests;
+        });
+    }
+
+    private record Entry(IntrospectResponse response, String sessionId) {
+    }
+
+    private record ResultExpiry(long maxTtlNanos, long negativeTtlNanos) implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            IntrospectResponse response = entry.response();
+            if (!Boolean.TRUE.equals(response.getActive())) {
+                return negativeTtlNanos;
+            }
+            if (response.getExp() == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiry = TimeUnit.SECONDS.toNanos(response.getExp())
+                    - TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+            return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
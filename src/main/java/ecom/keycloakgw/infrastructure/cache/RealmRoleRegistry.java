@@ -0,0 +1,112 @@
+package ecom.keycloakgw.infrastructure.cache;
+
+import ecom.keycloakgw.application.dto.response.RoleResponse;
+import ecom.keycloakgw.domain.utils.ERole;
+import ecom.keycloakgw.infrastructure.client.KeycloakUserClient;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.keycloakgw.infrastructure.token.AdminTokenManager;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory realm roles for registration. With a service account, every {@link ERole}
+ * and configured extra role is loaded at startup and refreshed on a schedule; without
+ * one, roles are cached on first use with the caller's token. Keycloak is only asked
+ * on a miss or once an entry is older than max-age, and a stale entry is still served
+ * if that lookup fails.
+ */
+@Component
+public class RealmRoleRegistry implements InitializingBean, DisposableBean {
+
+    private final KeycloakUserClient keycloakUserClient;
+    private final AdminTokenManager adminTokenManager;
+    private final KeycloakProperties.Roles config;
+    private final Set<String> preloadedRoles;
+    private final ConcurrentHashMap<String, CachedRole> roles = new ConcurrentHashMap<>();
+    private Disposable scheduledRefresh;
+
+    public RealmRoleRegistry(KeycloakUserClient keycloakUserClient, AdminTokenManager adminTokenManager,
+                             KeycloakProperties properties) {
+        this.keycloakUserClient = keycloakUserClient;
+        this.adminTokenManager = adminTokenManager;
+        this.config = properties.getRoles();
+        this.preloadedRoles = new LinkedHashSet<>();
+        Arrays.stream(ERole.values()).map(ERole::getRole).forEach(preloadedRoles::add);
+        preloadedRoles.addAll(config.getExtra());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!adminTokenManager.isEnabled()) {
+            return;
+        }
+        scheduledRefresh = Flux.interval(Duration.ZERO, config.getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh())
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.dispose();
+        }
+    }
+
+    public Mono<RoleResponse> getRole(String callerToken, String roleName) {
+        CachedRole cached = roles.get(roleName);
+        if (cached != null && cached.freshAt(System.nanoTime(), config.getMaxAge())) {
+            return Mono.just(cached.role());
+        }
+        return load(callerToken, roleName)
+                .onErrorResume(ex -> {
+                    if (cached == null) {
+                        return Mono.error(ex);
+                    }
+                    return Mono.deferContextual(ctx -> {
+                        ContextMdc.run(ctx, () -> LoggerUtils.warn(RealmRoleRegistry.class,
+                                "Serving stale role {} after lookup failure: {}", roleName, ex.getMessage()));
+                        return Mono.just(cached.role());
+                    });
+                });
+    }
+
+    public Mono<Void> refresh() {
+        return Flux.fromIterable(preloadedRoles)
+                .flatMap(roleName -> remember(roleName, adminTokenManager.executeAsServiceAccount(
+                                adminToken -> keycloakUserClient.getRealmRole(adminToken, roleName)))
+                        .onErrorResume(ex -> {
+                            LoggerUtils.warn(RealmRoleRegistry.class, "Role refresh failed for {}: {}", roleName, ex.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private Mono<RoleResponse> load(String callerToken, String roleName) {
+        return remember(roleName, adminTokenManager.execute(callerToken,
+                adminToken -> keycloakUserClient.getRealmRole(adminToken, roleName)));
+    }
+
+    private Mono<RoleResponse> remember(String roleName, Mono<RoleResponse> lookup) {
+        return lookup.doOnNext(role -> roles.put(roleName, new CachedRole(role, System.nanoTime())));
+    }
+
+    private record CachedRole(RoleResponse role, long loadedAtNanos) {
+
+        boolean freshAt(long nowNanos, Duration maxAge) {
+            return nowNanos - loadedAtNanos < maxAge.toNanos();
+        }
+    }
+}
@@ -4,50 +4,105 @@ import ecom.keycloakgw.application.dto.response.TokenResponse;
 import ecom.keycloakgw.domain.exception.BusinessException;
 import ecom.keycloakgw.domain.exception.ErrorCode;
 import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.keycloakgw.infrastructure.resilience.EKeycloakOperation;
+import ecom.keycloakgw.infrastructure.resilience.KeycloakResilience;
 import ecom.log.utils.LoggerUtils;
-import org.springframework.http.MediaType;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+
 @Component
 public class KeycloakAuthClient {
 
     private final WebClient keycloakWebClient;
-    private final KeycloakProperties properties;
+    private static final FormBody CLIENT_CREDENTIALS_FORM = FormBody.builder()
+            .constant("grant_type", "client_credentials")
+            .field("client_id")
+            .field("client_secret")
+            .build();
+
+    private final KeycloakEndpoints endpoints;
+    private final KeycloakResilience resilience;
+    private final FormBody adminLoginForm;
 
-    public KeycloakAuthClient(WebClient keycloakWebClient, KeycloakProperties properties) {
+    public KeycloakAuthClient(WebClient keycloakWebClient, KeycloakProperties properties,
+                              KeycloakEndpoints endpoints, KeycloakResilience resilience) {
         this.keycloakWebClient = keycloakWebClient;
-        this.properties = properties;
+        this.endpoints = endpoints;
+        this.resilience = resilience;
+        this.adminLoginForm = FormBody.builder()
+                .constant("grant_type", "password")
+                .constant("client_id", properties.getMaster().getAdminClientId())
+                .field("username")
+                .field("password")
+                .build();
     }
 
     public Mono<TokenResponse> adminLogin(String username, String password) {
-        String tokenUrl = String.format(properties.getMaster().getUrl().getAdminToken()
-                , properties.getMaster().getAdminRealm());
+        return adminLogin(username, password, TokenResponse.class)
+                .doOnEach(ContextMdc.onNext(token -> LoggerUtils.info(KeycloakAuthClient.class,
+                        "Admin login successful, token_type={}, expires_in={}",
+                        token.getTokenType(), token.getExpiresIn())));
+    }
+
+    /**
+     * The token response exactly as Keycloak sent it, for the login passthrough. The
+     * caller owns the buffer and must release it.
+     */
+    public Mono<DataBuffer> adminLoginBody(String username, String password) {
+        return adminLogin(username, password, DataBuffer.class)
+                .doOnEach(ContextMdc.onNext(body -> LoggerUtils.info(KeycloakAuthClient.class,
+                        "Admin login successful, {} bytes", body.readableByteCount())));
+    }
+
+    private <T> Mono<T> adminLogin(String username, String password, Class<T> bodyType) {
+        URI tokenUrl = endpoints.adminToken();
 
         LoggerUtils.info(KeycloakAuthClient.class, "Calling Keycloak admin login: POST {}", tokenUrl);
 
         return keycloakWebClient.post()
                 .uri(tokenUrl)
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .body(BodyInserters.fromFormData("grant_type", "password")
-                        .with("client_id", properties.getMaster().getAdminClientId())
-                        .with("username", username)
-                        .with("password", password))
+                .body(adminLoginForm.with(username, password))
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.ADMIN_LOGIN)
                 .retrieve()
-                .bodyToMono(TokenResponse.class)
-                .doOnSuccess(token -> LoggerUtils.info(KeycloakAuthClient.class,
-                        "Admin login successful, token_type={}, expires_in={}",
-                        token.getTokenType(), token.getExpiresIn()))
-                .onErrorResume(WebClientResponseException.class, ex -> {
-                    LoggerUtils.error(KeycloakAuthClient.class,
+                .bodyToMono(bodyType)
+                .transform(resilience.guard(EKeycloakOperation.ADMIN_LOGIN))
+                .onErrorResume(WebClientResponseException.class, ex -> Mono.deferContextual(ctx -> {
+                    ContextMdc.run(ctx, () -> LoggerUtils.error(KeycloakAuthClient.class,
                             "Keycloak admin login failed: status={}, body={}",
-                            ex.getStatusCode(), ex.getResponseBodyAsString());
+                            ex.getStatusCode(), ex.getResponseBodyAsString()));
                     return Mono.error(new BusinessException(
                             ErrorCode.KEYCLOAK_ERROR,
                             "Admin login failed: " + ex.getResponseBodyAsString()));
-                });
+                }));
+    }
+
+    public Mono<TokenResponse> clientCredentialsLogin(String realm, String clientId, String clientSecret) {
+        URI tokenUrl = endpoints.tokenEndpoint(realm);
+
+        LoggerUtils.info(KeycloakAuthClient.class, "Requesting service account token: POST {} client_id={}", tokenUrl, clientId);
+
+        return keycloakWebClient.post()
+                .uri(tokenUrl)
+                .body(CLIENT_CREDENTIALS_FORM.with(clientId, clientSecret))
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.CLIENT_CREDENTIALS)
+                .retrieve()
+                .bodyToMono(TokenResponse.class)
+                .transform(resilience.guard(EKeycloakOperation.CLIENT_CREDENTIALS))
+                .doOnEach(ContextMdc.onNext(token -> LoggerUtils.info(KeycloakAuthClient.class,
+                        "Service account token issued, expires_in={}", token.getExpiresIn())))
+                .onErrorResume(WebClientResponseException.class, ex -> Mono.deferContextual(ctx -> {
+                    ContextMdc.run(ctx, () -> LoggerUtils.error(KeycloakAuthClient.class,
+                            "Keycloak service account login failed: status={}, body={}",
+                            ex.getStatusCode(), ex.getResponseBodyAsString()));
+                    return Mono.error(new BusinessException(
+                            ErrorCode.KEYCLOAK_ERROR,
+                            "Service account login failed: " + ex.getResponseBodyAsString()));
+                }));
     }
 }
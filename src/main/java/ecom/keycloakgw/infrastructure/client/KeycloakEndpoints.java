@@ -0,0 +1,143 @@
+package ecom.keycloakgw.infrastructure.client;
+
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keycloak URIs resolved once at startup. The URL templates in {@link KeycloakProperties}
+ * are {@code String.format} patterns with the realm first; fixed endpoints become ready
+ * {@link URI}s and per-user endpoints are split around the user id, so a request costs
+ * one concatenation instead of a format call plus WebClient's template expansion.
+ */
+@Component
+public class KeycloakEndpoints {
+
+    private final URI createUser;
+    private final URI usersByUsername;
+    private final URI listUsers;
+    private final URI userLogin;
+    private final URI introspect;
+    private final URI logout;
+    private final URI jwks;
+    private final URI adminToken;
+    private final String adminTokenTemplate;
+    private final PathTemplate userById;
+    private final PathTemplate updateUser;
+    private final PathTemplate realmRole;
+    private final PathTemplate roleMappings;
+    private final PathTemplate resetPassword;
+    private final String clientAuthorization;
+
+    public KeycloakEndpoints(KeycloakProperties properties) {
+        KeycloakProperties.Ecom ecom = properties.getEcom();
+        KeycloakProperties.Ecom.UrlEcom url = ecom.getUrl();
+        String base = stripTrailingSlash(properties.getBaseUrl());
+        String realm = ecom.getEcomRealm();
+
+        this.createUser = URI.create(base + String.format(url.getCreateUser(), realm));
+        this.usersByUsername = URI.create(base + String.format(url.getGetUserByUsername(), realm));
+        this.listUsers = URI.create(base + String.format(url.getListUsers(), realm));
+        this.userLogin = URI.create(base + String.format(url.getUserLogin(), realm));
+        this.introspect = URI.create(base + String.format(url.getValidateToken(), realm));
+        this.logout = URI.create(base + String.format(url.getLogout(), realm));
+        this.jwks = URI.create(base + String.format(url.getJwks(), realm));
+        this.adminTokenTemplate = base + properties.getMaster().getUrl().getAdminToken();
+        this.adminToken = URI.create(String.format(adminTokenTemplate, properties.getMaster().getAdminRealm()));
+        this.userById = PathTemplate.of(base, url.getGetUserById(), realm);
+        this.updateUser = PathTemplate.of(base, url.getUpdateUser(), realm);
+        this.realmRole = PathTemplate.of(base, url.getGetRealmRole(), realm);
+        this.roleMappings = PathTemplate.of(base, url.getAssignRealmRole(), realm);
+        this.resetPassword = PathTemplate.of(base, url.getResetPassword(), realm);
+
+        // client_secret_basic: both parts are form-encoded before base64, per RFC 6749 2.3.1
+        String credentials = URLEncoder.encode(ecom.getEcomClientId(), StandardCharsets.UTF_8) + ":"
+                + URLEncoder.encode(ecom.getEcomClientSecret(), StandardCharsets.UTF_8);
+        this.clientAuthorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public URI createUser() {
+        return createUser;
+    }
+
+    public URI userByUsername(String username) {
+        return URI.create(usersByUsername + "?username=" + UriUtils.encodeQueryParam(username, StandardCharsets.UTF_8) + "&exact=true");
+    }
+
+    public URI usersPage(int first, int max) {
+        return URI.create(listUsers + "?first=" + first + "&max=" + max);
+    }
+
+    public URI userById(String userId) {
+        return userById.expand(userId);
+    }
+
+    public URI updateUser(String userId) {
+        return updateUser.expand(userId);
+    }
+
+    public URI realmRole(String roleName) {
+        return realmRole.expand(roleName);
+    }
+
+    public URI roleMappings(String userId) {
+        return roleMappings.expand(userId);
+    }
+
+    public URI resetPassword(String userId) {
+        return resetPassword.expand(userId);
+    }
+
+    public URI userLogin() {
+        return userLogin;
+    }
+
+    public URI introspect() {
+        return introspect;
+    }
+
+    public URI logout() {
+        return logout;
+    }
+
+    public URI jwks() {
+        return jwks;
+    }
+
+    public URI adminToken() {
+        return adminToken;
+    }
+
+    public URI tokenEndpoint(String realm) {
+        return URI.create(String.format(adminTokenTemplate, realm));
+    }
+
+    /**
+     * Precomputed {@code Authorization: Basic} value for the gateway's confidential client.
+     */
+    public String clientAuthorization() {
+        return clientAuthorization;
+    }
+
+    private static String stripTrailingSlash(String baseUrl) {
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    private record PathTemplate(String prefix, String suffix) {
+
+        static PathTemplate of(String base, String template, String realm) {
+            String resolved = base + String.format(template, realm, "\u0000");
+            int hole = resolved.indexOf('\u0000');
+            return new PathTemplate(resolved.substring(0, hole), resolved.substring(hole + 1));
+        }
+
+        URI expand(String segment) {
+            return URI.create(prefix + UriUtils.encodePathSegment(segment, StandardCharsets.UTF_8) + suffix);
+        }
+    }
+}
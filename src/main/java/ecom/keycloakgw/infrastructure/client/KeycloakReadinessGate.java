@@ -0,0 +1,100 @@
+package ecom.keycloakgw.infrastructure.client;
+
+import ecom.keycloakgw.domain.utils.ETokenValidationMode;
+import ecom.keycloakgw.infrastructure.cache.RealmRoleRegistry;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.resilience.EKeycloakOperation;
+import ecom.keycloakgw.infrastructure.token.AdminTokenManager;
+import ecom.keycloakgw.infrastructure.token.JwksKeyStore;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds startup until Keycloak can be served from warm state: at least
+ * {@code min-connections} pooled connections are open, the realm signing keys are loaded
+ * and, with a service account, the realm roles are cached. Boot reports readiness only
+ * after application runners return, so a new pod takes traffic with this done.
+ * <p>
+ * Failures are retried until {@code timeout}, which covers Keycloak starting alongside the
+ * gateway. After that the gate logs and lets startup finish; the key store and role
+ * registry keep loading lazily as before.
+ */
+@Component
+public class KeycloakReadinessGate implements ApplicationRunner {
+
+    private static final Duration RETRY_MIN_BACKOFF = Duration.ofMillis(100);
+    private static final Duration RETRY_MAX_BACKOFF = Duration.ofSeconds(1);
+
+    private final WebClient keycloakWebClient;
+    private final KeycloakEndpoints endpoints;
+    private final JwksKeyStore jwksKeyStore;
+    private final RealmRoleRegistry realmRoleRegistry;
+    private final AdminTokenManager adminTokenManager;
+    private final KeycloakProperties properties;
+
+    public KeycloakReadinessGate(WebClient keycloakWebClient, KeycloakEndpoints endpoints, JwksKeyStore jwksKeyStore,
+                                 RealmRoleRegistry realmRoleRegistry, AdminTokenManager adminTokenManager,
+                                 KeycloakProperties properties) {
+        this.keycloakWebClient = keycloakWebClient;
+        this.endpoints = endpoints;
+        this.jwksKeyStore = jwksKeyStore;
+        this.realmRoleRegistry = realmRoleRegistry;
+        this.adminTokenManager = adminTokenManager;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        KeycloakProperties.Readiness config = properties.getReadiness();
+        if (!config.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            openConnections(config.getMinConnections())
+                    .then(loadSigningKeys())
+                    .then(loadRoles())
+                    .retryWhen(Retry.backoff(Long.MAX_VALUE, RETRY_MIN_BACKOFF).maxBackoff(RETRY_MAX_BACKOFF))
+                    .block(config.getTimeout());
+            LoggerUtils.info(KeycloakReadinessGate.class, "Keycloak warm-up finished in {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException ex) {
+            LoggerUtils.warn(KeycloakReadinessGate.class, "Keycloak warm-up incomplete after {} ms, starting cold: {}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), ex.toString());
+        }
+    }
+
+    /**
+     * Concurrent requests make the pool open one connection each; over HTTP/2 they share
+     * the connections the allocation strategy keeps open anyway.
+     */
+    private Mono<Void> openConnections(int count) {
+        return Flux.range(0, count)
+                .flatMap(i -> keycloakWebClient.get()
+                        .uri(endpoints.jwks())
+                        .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.JWKS)
+                        .retrieve()
+                        .toBodilessEntity(), count)
+                .then();
+    }
+
+    private Mono<Void> loadSigningKeys() {
+        if (properties.getTokenValidation().getMode() == ETokenValidationMode.REMOTE) {
+            return Mono.empty();
+        }
+        return jwksKeyStore.refresh().then();
+    }
+
+    private Mono<Void> loadRoles() {
+        return adminTokenManager.isEnabled() ? realmRoleRegistry.refresh() : Mono.empty();
+    }
+}
@@ -1,22 +1,28 @@
 package ecom.keycloakgw.infrastructure.client;
 
 import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.application.dto.response.JwksResponse;
 import ecom.keycloakgw.application.dto.response.RoleResponse;
 import ecom.keycloakgw.application.dto.response.TokenResponse;
 import ecom.keycloakgw.application.dto.response.UserResponse;
 import ecom.keycloakgw.domain.exception.BusinessException;
 import ecom.keycloakgw.domain.exception.ErrorCode;
-import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.keycloakgw.infrastructure.resilience.EKeycloakOperation;
+import ecom.keycloakgw.infrastructure.resilience.KeycloakResilience;
+import ecom.keycloakgw.infrastructure.resilience.KeycloakRetryPolicy;
+import ecom.keycloakgw.infrastructure.resilience.SingleFlight;
+import ecom.keycloakgw.infrastructure.token.TokenDigest;
 import ecom.log.utils.LoggerUtils;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
-import java.util.HashMap;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -24,179 +30,261 @@ import java.util.Map;
 public class KeycloakUserClient {
 
     private final WebClient keycloakWebClient;
-    private final KeycloakProperties properties;
-
-    public KeycloakUserClient(WebClient keycloakWebClient, KeycloakProperties properties) {
+    private final KeycloakEndpoints endpoints;
+    private final SingleFlight singleFlight;
+    private final KeycloakResilience resilience;
+    private final KeycloakRetryPolicy retryPolicy;
+
+    private static final FormBody USER_LOGIN_FORM = FormBody.builder()
+            .constant("grant_type", "password")
+            .field("username")
+            .field("password")
+            .build();
+    private static final FormBody INTROSPECT_FORM = FormBody.builder().field("token").build();
+    private static final FormBody LOGOUT_FORM = FormBody.builder().field("refresh_token").build();
+
+    public KeycloakUserClient(WebClient keycloakWebClient, KeycloakEndpoints endpoints,
+                              SingleFlight singleFlight, KeycloakResilience resilience,
+                              KeycloakRetryPolicy retryPolicy) {
         this.keycloakWebClient = keycloakWebClient;
-        this.properties = properties;
+        this.endpoints = endpoints;
+        this.singleFlight = singleFlight;
+        this.resilience = resilience;
+        this.retryPolicy = retryPolicy;
     }
 
 
-    public Mono<Void> createUser(String adminToken, String username, String email,
+    /**
+     * Creates the user and returns the new id taken from the {@code Location} header,
+     * or an empty Mono when Keycloak did not send one.
+     */
+    public Mono<String> createUser(String adminToken, String username, String email,
                                  String firstName, String lastName, String password) {
-        String url = String.format(properties.getEcom().getUrl().getCreateUser(), properties.getEcom().getEcomRealm());
+        URI url = endpoints.createUser();
         LoggerUtils.info(KeycloakUserClient.class,
                 "Creating user: POST {} username={}", url, username);
 
-        Map<String, Object> body = new HashMap<>();
-        body.put("username", username);
-        body.put("enabled", true);
-        body.put("email", email);
-        body.put("firstName", firstName != null ? firstName : "");
-        body.put("lastName", lastName != null ? lastName : "");
-        body.put("emailVerified", true);
-        body.put("requiredActions", List.of());
-        body.put("credentials", List.of(Map.of(
-                "type", "password",
-                "value", password,
-                "temporary", false
-        )));
+        NewUser body = new NewUser(username, true, email,
+                firstName != null ? firstName : "",
+                lastName != null ? lastName : "",
+                true, List.of(), List.of(new Credential("password", password, false)));
 
         return keycloakWebClient.post()
                 .uri(url)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(body)
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.CREATE_USER)
                 .retrieve()
                 .toBodilessEntity()
-                .doOnSuccess(r -> LoggerUtils.info(KeycloakUserClient.class,
-                        "User created successfully: {}", username))
-                .then()
+                .transform(resilience.guard(EKeycloakOperation.CREATE_USER))
+                .doOnEach(ContextMdc.onNext(r -> LoggerUtils.info(KeycloakUserClient.class,
+                        "User created successfully: {}", username)))
+                .flatMap(response -> Mono.justOrEmpty(idFromLocation(response.getHeaders().getLocation())))
                 .onErrorResume(WebClientResponseException.class,
                         ex -> mapError(ex, "Create user failed"));
     }
 
 
     public Mono<UserResponse> getUserByUsername(String adminToken, String username) {
-        String url = String.format(properties.getEcom().getUrl().getGetUserByUsername(),
-                properties.getEcom().getEcomRealm());
-        LoggerUtils.info(KeycloakUserClient.class, "Getting userId: GET {} username={}", url, username);
+        return singleFlight.execute(new ReadKey("getUserByUsername", TokenDigest.sha256(adminToken), username),
+                () -> fetchUserByUsername(adminToken, username));
+    }
+
+    private Mono<UserResponse> fetchUserByUsername(String adminToken, String username) {
+        URI url = endpoints.userByUsername(username);
+        LoggerUtils.info(KeycloakUserClient.class, "Getting userId: GET {}", url);
 
         return keycloakWebClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path(url)
-                        .queryParam("username", username)
-                        .queryParam("exact", true)
-                        .build())
+                .uri(url)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.GET_USER_BY_USERNAME)
                 .retrieve()
                 .bodyToFlux(UserResponse.class)
                 .next()
+                .transform(resilience.guard(EKeycloakOperation.GET_USER_BY_USERNAME))
+                .transform(retryPolicy.idempotent(EKeycloakOperation.GET_USER_BY_USERNAME))
                 .switchIfEmpty(Mono.error(new BusinessException(ErrorCode.INVALID_REQUEST, "User not found: " + username)))
-                .doOnSuccess(user -> LoggerUtils.info(KeycloakUserClient.class, "Found userId={} for username={}", user.getId(), username))
+                .doOnEach(ContextMdc.onNext(user -> LoggerUtils.info(KeycloakUserClient.class, "Found userId={} for username={}", user.getId(), username)))
                 .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "Get user failed"));
     }
 
 
     public Mono<UserResponse> getUserById(String adminToken, String userId) {
-        String url = String.format(properties.getEcom().getUrl().getGetUserById(),
-                properties.getEcom().getEcomRealm(), userId);
+        return singleFlight.execute(new ReadKey("getUserById", TokenDigest.sha256(adminToken), userId),
+                () -> fetchUserById(adminToken, userId));
+    }
+
+    private Mono<UserResponse> fetchUserById(String adminToken, String userId) {
+        URI url = endpoints.userById(userId);
         LoggerUtils.info(KeycloakUserClient.class, "Getting user detail: GET {} userId={}", url, userId);
 
         return keycloakWebClient.get()
                 .uri(url)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.GET_USER_BY_ID)
                 .retrieve()
                 .bodyToMono(UserResponse.class)
-                .doOnSuccess(user -> LoggerUtils.info(KeycloakUserClient.class, "Got user detail for userId={}", userId))
+                .transform(resilience.guard(EKeycloakOperation.GET_USER_BY_ID))
+                .transform(retryPolicy.idempotent(EKeycloakOperation.GET_USER_BY_ID))
+                .doOnEach(ContextMdc.onNext(user -> LoggerUtils.info(KeycloakUserClient.class, "Got user detail for userId={}", userId)))
                 .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "Get user detail failed"));
     }
 
 
+    /**
+     * One page of the realm's users, ordered by Keycloak. An empty or short page means
+     * there are no more users.
+     */
+    public Mono<List<UserResponse>> listUsers(String adminToken, int first, int max) {
+        URI url = endpoints.usersPage(first, max);
+        LoggerUtils.info(KeycloakUserClient.class, "Listing users: GET {}", url);
+
+        return keycloakWebClient.get()
+                .uri(url)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.LIST_USERS)
+                .retrieve()
+                .bodyToFlux(UserResponse.class)
+                .collectList()
+                .transform(resilience.guard(EKeycloakOperation.LIST_USERS))
+                .transform(retryPolicy.idempotent(EKeycloakOperation.LIST_USERS))
+                .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "List users failed"));
+    }
+
+
     public Mono<RoleResponse> getRealmRole(String adminToken, String roleName) {
-        String url = String.format(properties.getEcom().getUrl().getGetRealmRole(),
-                properties.getEcom().getEcomRealm(), roleName);
+        return singleFlight.execute(new ReadKey("getRealmRole", TokenDigest.sha256(adminToken), roleName),
+                () -> fetchRealmRole(adminToken, roleName));
+    }
+
+    private Mono<RoleResponse> fetchRealmRole(String adminToken, String roleName) {
+        URI url = endpoints.realmRole(roleName);
         LoggerUtils.info(KeycloakUserClient.class, "Getting realm role: GET {} role={}", url, roleName);
 
         return keycloakWebClient.get()
                 .uri(url)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.GET_REALM_ROLE)
                 .retrieve()
                 .bodyToMono(RoleResponse.class)
-                .doOnSuccess(role -> LoggerUtils.info(KeycloakUserClient.class, "Found role id={} name={}", role.getId(), role.getName()))
+                .transform(resilience.guard(EKeycloakOperation.GET_REALM_ROLE))
+                .transform(retryPolicy.idempotent(EKeycloakOperation.GET_REALM_ROLE))
+                .doOnEach(ContextMdc.onNext(role -> LoggerUtils.info(KeycloakUserClient.class, "Found role id={} name={}", role.getId(), role.getName())))
                 .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "Get realm role failed"));
     }
 
 
     public Mono<Void> assignRealmRole(String adminToken, String userId, String roleId, String roleName) {
-        String url = String.format(properties.getEcom().getUrl().getAssignRealmRole(),
-                properties.getEcom().getEcomRealm(), userId);
+        URI url = endpoints.roleMappings(userId);
         LoggerUtils.info(KeycloakUserClient.class, "Assigning role: POST {} userId={} role={}", url, userId, roleName);
 
-        List<Map<String, String>> body = List.of(Map.of("id", roleId, "name", roleName));
+        List<RoleRef> body = List.of(new RoleRef(roleId, roleName));
 
         return keycloakWebClient.post()
                 .uri(url)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(body)
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.ASSIGN_REALM_ROLE)
                 .retrieve()
                 .toBodilessEntity()
-                .doOnSuccess(r -> LoggerUtils.info(KeycloakUserClient.class, "Role {} assigned to userId={}", roleName, userId))
+                .transform(resilience.guard(EKeycloakOperation.ASSIGN_REALM_ROLE))
+                .doOnEach(ContextMdc.onNext(r -> LoggerUtils.info(KeycloakUserClient.class, "Role {} assigned to userId={}", roleName, userId)))
                 .then()
                 .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "Assign role failed"));
     }
 
 
     public Mono<TokenResponse> userLogin(String username, String password) {
-        String url = String.format(properties.getEcom().getUrl().getUserLogin(),
-                properties.getEcom().getEcomRealm());
+        return userLogin(username, password, TokenResponse.class);
+    }
+
+    /**
+     * The token response exactly as Keycloak sent it, for the login passthrough. The
+     * caller owns the buffer and must release it.
+     */
+    public Mono<DataBuffer> userLoginBody(String username, String password) {
+        return userLogin(username, password, DataBuffer.class);
+    }
+
+    private <T> Mono<T> userLogin(String username, String password, Class<T> bodyType) {
+        URI url = endpoints.userLogin();
         LoggerUtils.info(KeycloakUserClient.class, "User login: POST {} username={}", url, username);
 
         return keycloakWebClient.post()
                 .uri(url)
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .body(BodyInserters.fromFormData("grant_type", "password")
-                        .with("client_id", properties.getEcom().getEcomClientId())
-                        .with("client_secret", properties.getEcom().getEcomClientSecret())
-                        .with("username", username)
-                        .with("password", password))
+                .header(HttpHeaders.AUTHORIZATION, endpoints.clientAuthorization())
+                .body(USER_LOGIN_FORM.with(username, password))
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.USER_LOGIN)
                 .retrieve()
-                .bodyToMono(TokenResponse.class)
-                .doOnSuccess(t -> LoggerUtils.info(KeycloakUserClient.class, "User login successful for {}", username))
+                .bodyToMono(bodyType)
+                .transform(resilience.guard(EKeycloakOperation.USER_LOGIN))
+                .doOnEach(ContextMdc.onNext(t -> LoggerUtils.info(KeycloakUserClient.class, "User login successful for {}", username)))
                 .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "User login failed"));
     }
 
 
     public Mono<IntrospectResponse> validateToken(String token) {
-        String url = String.format(properties.getEcom().getUrl().getValidateToken(),
-                properties.getEcom().getEcomRealm());
+        return singleFlight.execute(new ReadKey("validateToken", TokenDigest.sha256(token), null),
+                () -> introspect(token));
+    }
+
+    private Mono<IntrospectResponse> introspect(String token) {
+        URI url = endpoints.introspect();
         LoggerUtils.info(KeycloakUserClient.class, "Validating token: POST {}", url);
 
         return keycloakWebClient.post()
                 .uri(url)
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .body(BodyInserters.fromFormData("client_id", properties.getEcom().getEcomClientId())
-                        .with("client_secret", properties.getEcom().getEcomClientSecret())
-                        .with("token", token))
+                .header(HttpHeaders.AUTHORIZATION, endpoints.clientAuthorization())
+                .body(INTROSPECT_FORM.with(token))
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.INTROSPECT)
                 .retrieve()
                 .bodyToMono(IntrospectResponse.class)
-                .doOnSuccess(r -> LoggerUtils.info(KeycloakUserClient.class, "Token validation result: active={}", r.getActive()))
+                .transform(resilience.guard(EKeycloakOperation.INTROSPECT))
+                .transform(retryPolicy.idempotent(EKeycloakOperation.INTROSPECT))
+                .doOnEach(ContextMdc.onNext(r -> LoggerUtils.info(KeycloakUserClient.class, "Token validation result: active={}", r.getActive())))
                 .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "Validate token failed"));
     }
 
 
+    public Mono<JwksResponse> getJwks() {
+        URI url = endpoints.jwks();
+        LoggerUtils.info(KeycloakUserClient.class, "Fetching realm signing keys: GET {}", url);
+
+        return keycloakWebClient.get()
+                .uri(url)
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.JWKS)
+                .retrieve()
+                .bodyToMono(JwksResponse.class)
+                .transform(resilience.guard(EKeycloakOperation.JWKS))
+                .transform(retryPolicy.idempotent(EKeycloakOperation.JWKS))
+                .doOnEach(ContextMdc.onNext(r -> LoggerUtils.info(KeycloakUserClient.class, "Fetched {} signing keys",
+                        r.getKeys() != null ? r.getKeys().size() : 0)))
+                .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "Get signing keys failed"));
+    }
+
+
     public Mono<Void> logout(String refreshToken) {
-        String url = String.format(properties.getEcom().getUrl().getLogout(), properties.getEcom().getEcomRealm());
+        URI url = endpoints.logout();
         LoggerUtils.info(KeycloakUserClient.class, "User logout: POST {}", url);
 
         return keycloakWebClient.post()
                 .uri(url)
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .body(BodyInserters.fromFormData("client_id", properties.getEcom().getEcomClientId())
-                        .with("client_secret", properties.getEcom().getEcomClientSecret())
-                        .with("refresh_token", refreshToken))
+                .header(HttpHeaders.AUTHORIZATION, endpoints.clientAuthorization())
+                .body(LOGOUT_FORM.with(refreshToken))
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.LOGOUT)
                 .retrieve()
                 .toBodilessEntity()
-                .doOnSuccess(r -> LoggerUtils.info(KeycloakUserClient.class, "User logged out successfully"))
+                .transform(resilience.guard(EKeycloakOperation.LOGOUT))
+                .doOnEach(ContextMdc.onNext(r -> LoggerUtils.info(KeycloakUserClient.class, "User logged out successfully")))
                 .then()
                 .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "Logout failed"));
     }
 
 
     public Mono<Void> updateUser(String adminToken, String userId, Map<String, Object> updateBody) {
-        String url = String.format(properties.getEcom().getUrl().getUpdateUser(),
-                properties.getEcom().getEcomRealm(), userId);
+        URI url = endpoints.updateUser(userId);
         LoggerUtils.info(KeycloakUserClient.class, "Updating user: PUT {} userId={}", url, userId);
 
         return keycloakWebClient.put()
@@ -204,41 +292,72 @@ public class KeycloakUserClient {
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(updateBody)
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.UPDATE_USER)
                 .retrieve()
                 .toBodilessEntity()
-                .doOnSuccess(r -> LoggerUtils.info(KeycloakUserClient.class, "User updated successfully: userId={}", userId))
+                .transform(resilience.guard(EKeycloakOperation.UPDATE_USER))
+                .doOnEach(ContextMdc.onNext(r -> LoggerUtils.info(KeycloakUserClient.class, "User updated successfully: userId={}", userId)))
                 .then()
                 .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "Update user failed"));
     }
 
 
     public Mono<Void> resetPassword(String adminToken, String userId, String newPassword, boolean temporary) {
-        String url = String.format(properties.getEcom().getUrl().getResetPassword(),
-                properties.getEcom().getEcomRealm(), userId);
+        URI url = endpoints.resetPassword(userId);
         LoggerUtils.info(KeycloakUserClient.class, "Resetting password: PUT {} userId={}", url, userId);
 
-        Map<String, Object> body = Map.of(
-                "type", "password",
-                "value", newPassword,
-                "temporary", temporary
-        );
+        Credential body = new Credential("password", newPassword, temporary);
 
         return keycloakWebClient.put()
                 .uri(url)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(body)
+                .attribute(EKeycloakOperation.ATTRIBUTE, EKeycloakOperation.RESET_PASSWORD)
                 .retrieve()
                 .toBodilessEntity()
-                .doOnSuccess(r -> LoggerUtils.info(KeycloakUserClient.class, "Password reset for userId={}", userId))
+                .transform(resilience.guard(EKeycloakOperation.RESET_PASSWORD))
+                .doOnEach(ContextMdc.onNext(r -> LoggerUtils.info(KeycloakUserClient.class, "Password reset for userId={}", userId)))
                 .then()
                 .onErrorResume(WebClientResponseException.class, ex -> mapError(ex, "Reset password failed"));
     }
 
+    private static String idFromLocation(URI location) {
+        if (location == null || location.getPath() == null) {
+            return null;
+        }
+        String path = location.getPath();
+        int lastSlash = path.lastIndexOf('/');
+        String id = lastSlash >= 0 ? path.substring(lastSlash + 1) : path;
+        return id.isBlank() ? null : id;
+    }
+
+    private record ReadKey(String operation, String credentialDigest, String argument) {
+
+        // Logged by SingleFlight; the digest identifies a credential and stays out of the logs
+        @Override
+        public String toString() {
+            return argument == null ? operation : operation + "(" + argument + ")";
+        }
+    }
+
+    private record NewUser(String username, boolean enabled, String email, String firstName, String lastName,
+                           boolean emailVerified, List<String> requiredActions, List<Credential> credentials) {
+    }
+
+    private record Credential(String type, String value, boolean temporary) {
+    }
+
+    private record RoleRef(String id, String name) {
+    }
+
     private <T> Mono<T> mapError(WebClientResponseException ex, String context) {
-        LoggerUtils.error(KeycloakUserClient.class, "{}: status={}, body={}",
-                context, ex.getStatusCode(), ex.getResponseBodyAsString());
-        return Mono.error(new BusinessException(ErrorCode.KEYCLOAK_ERROR,
-                context + ": " + ex.getResponseBodyAsString()));
+        ErrorCode errorCode = ex.getStatusCode().value() == 401 ? ErrorCode.UNAUTHORIZED : ErrorCode.KEYCLOAK_ERROR;
+        return Mono.deferContextual(ctx -> {
+            ContextMdc.run(ctx, () -> LoggerUtils.error(KeycloakUserClient.class, "{}: status={}, body={}",
+                    context, ex.getStatusCode(), ex.getResponseBodyAsString()));
+            return Mono.error(new BusinessException(errorCode,
+                    context + ": " + ex.getResponseBodyAsString()));
+        });
     }
 }
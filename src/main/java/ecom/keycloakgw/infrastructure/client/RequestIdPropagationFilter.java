@@ -0,0 +1,45 @@
+package ecom.keycloakgw.infrastructure.client;
+
+import ecom.keycloakgw.infrastructure.filter.RequestIdGenerator;
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends the inbound request's {@code X-Request-Id} and a W3C {@code traceparent} to
+ * Keycloak, both read from the Reactor context written by {@link RequestIdWebFilter}, so
+ * gateway and Keycloak logs can be joined. Every exchange, including each retry, gets
+ * its own parent-id. Background calls (key and token refreshes) have no request context
+ * and are sent unchanged.
+ */
+@Component
+public class RequestIdPropagationFilter implements ExchangeFilterFunction {
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(context -> {
+            String requestId = context.getOrDefault(RequestIdWebFilter.REQUEST_ID_KEY, null);
+            String traceId = context.getOrDefault(RequestIdWebFilter.TRACE_ID_KEY, null);
+            if (requestId == null && traceId == null) {
+                return next.exchange(request);
+            }
+            String traceFlags = context.getOrDefault(RequestIdWebFilter.TRACE_FLAGS_KEY, "01");
+            ClientRequest propagated = ClientRequest.from(request)
+                    .headers(headers -> {
+                        if (requestId != null) {
+                            headers.set(RequestIdWebFilter.REQUEST_ID_HEADER, requestId);
+                        }
+                        if (traceId != null) {
+                            headers.set(RequestIdWebFilter.TRACEPARENT_HEADER,
+                                    "00-" + traceId + "-" + RequestIdGenerator.spanId() + "-" + traceFlags);
+                        }
+                    })
+                    .build();
+            return next.exchange(propagated);
+        });
+    }
+}
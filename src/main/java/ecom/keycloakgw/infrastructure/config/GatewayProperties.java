@@ -0,0 +1,112 @@
+package ecom.keycloakgw.infrastructure.config;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway")
+public class GatewayProperties {
+
+    private RateLimit rateLimit = new RateLimit();
+    private Export export = new Export();
+    private BatchValidation batchValidation = new BatchValidation();
+    private Passthrough passthrough = new Passthrough();
+    private CodecWarmup codecWarmup = new CodecWarmup();
+    private InvocationLogging invocationLogging = new InvocationLogging();
+
+    @Getter
+    @Setter
+    public static class RateLimit {
+        private boolean enabled = true;
+        private long maximumBuckets = 200_000;
+        private Duration idleExpiry = Duration.ofMinutes(10);
+        private int maxBodyBytes = 16 * 1024;
+        private List<Route> routes = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Route {
+        private String path;
+        private Limit perIp;
+        private Limit perUsername;
+    }
+
+    /**
+     * Checked in the setters, so a non-positive value fails the binding at startup instead
+     * of producing a bucket whose emission interval divides by zero or overflows.
+     */
+    @Getter
+    public static class Limit {
+        private int capacity;
+        private double refillPerSecond;
+
+        public void setCapacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be at least 1, got " + capacity);
+            }
+            this.capacity = capacity;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            if (!(refillPerSecond > 0)) {
+                throw new IllegalArgumentException("refill-per-second must be positive, got " + refillPerSecond);
+            }
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Export {
+        private int pageSize = 200;
+        private int prefetchPages = 1;
+    }
+
+    @Getter
+    @Setter
+    public static class BatchValidation {
+        private int maxTokens = 100;
+        private int concurrency = 8;
+    }
+
+    @Getter
+    @Setter
+    public static class Passthrough {
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class CodecWarmup {
+        private boolean enabled = true;
+        private int iterations = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class InvocationLogging {
+        private boolean enabled = true;
+        private double sampleRate = 0.01;
+        private Duration slowThreshold = Duration.ofMillis(500);
+        private boolean logArguments = true;
+        private List<MethodRule> methods = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class MethodRule {
+        private String name;
+        private Double sampleRate;
+        private Duration slowThreshold;
+        private Boolean logArguments;
+    }
+}
@@ -0,0 +1,21 @@
+package ecom.keycloakgw.infrastructure.config;
+
+import ecom.keycloakgw.infrastructure.json.ApiResponseSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.databind.module.SimpleModule;
+
+/**
+ * Modules for the application {@code JsonMapper}. Boot adds every {@link JacksonModule}
+ * bean, and also any module found on the classpath, which is how the {@code blackbird}
+ * Maven profile switches bean property access to generated lambdas.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public JacksonModule apiResponseModule() {
+        return new SimpleModule("api-response").addSerializer(new ApiResponseSerializer());
+    }
+}
@@ -1,10 +1,19 @@
 package ecom.keycloakgw.infrastructure.config;
 
+import ecom.keycloakgw.domain.utils.ETokenValidationMode;
+import ecom.keycloakgw.infrastructure.resilience.EKeycloakOperation;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @Configuration
@@ -14,6 +23,15 @@ public class KeycloakProperties {
     private String baseUrl;
     private Master master;
     private Ecom ecom;
+    private TokenValidation tokenValidation = new TokenValidation();
+    private IntrospectionCache introspectionCache = new IntrospectionCache();
+    private ServiceAccount serviceAccount = new ServiceAccount();
+    private Roles roles = new Roles();
+    private Http http = new Http();
+    private Resilience resilience = new Resilience();
+    private Retry retry = new Retry();
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+    private Readiness readiness = new Readiness();
 
     @Getter
     @Setter
@@ -50,8 +68,168 @@ public class KeycloakProperties {
             private String logout;
             private String updateUser;
             private String resetPassword;
+            private String jwks;
+            private String listUsers;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class TokenValidation {
+        private ETokenValidationMode mode = ETokenValidationMode.REMOTE;
+        private String issuer;
+        private List<String> audiences = new ArrayList<>();
+        private Duration clockSkew = Duration.ofSeconds(30);
+        private Duration jwksRefreshInterval = Duration.ofMinutes(10);
+        private Duration jwksMinRefreshInterval = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class IntrospectionCache {
+        private boolean enabled = true;
+        private long maximumSize = 100_000;
+        private Duration maxTtl = Duration.ofMinutes(5);
+        private Duration negativeTtl = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class ServiceAccount {
+        private boolean enabled = false;
+        private String realm;
+        private String clientId;
+        private String clientSecret;
+        private String callerRole = "admin";
+        private Duration refreshSkew = Duration.ofSeconds(30);
+        private Duration refreshJitter = Duration.ofSeconds(10);
+        private Duration retryDelay = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Roles {
+        private List<String> extra = new ArrayList<>();
+        private Duration refreshInterval = Duration.ofMinutes(10);
+        private Duration maxAge = Duration.ofMinutes(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Http {
+        private String poolName = "keycloak";
+        private int maxConnections = 200;
+        private int pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration responseTimeout = Duration.ofSeconds(30);
+        private Duration writeTimeout = Duration.ofSeconds(10);
+        private boolean keepAlive = true;
+        private List<HttpProtocol> protocols = new ArrayList<>(List.of(HttpProtocol.HTTP11));
+        private long maxConcurrentStreams = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Resilience {
+        private Policy defaults = new Policy();
+        private Map<EKeycloakOperation.Group, PolicyOverride> groups = new EnumMap<>(EKeycloakOperation.Group.class);
+
+        /**
+         * The defaults with the group's override applied field by field; fields the
+         * override leaves unset keep the configured default.
+         */
+        public Policy policyFor(EKeycloakOperation.Group group) {
+            PolicyOverride override = groups.get(group);
+            return override == null ? defaults : override.applyTo(defaults);
+        }
+
+        @Getter
+        @Setter
+        public static class Policy {
+            private int slidingWindowSize = 50;
+            private int minimumNumberOfCalls = 20;
+            private float failureRateThreshold = 50;
+            private float slowCallRateThreshold = 80;
+            private Duration slowCallDuration = Duration.ofSeconds(2);
+            private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+            private int permittedCallsInHalfOpenState = 5;
+            private int maxConcurrentCalls = 100;
+        }
+
+        @Getter
+        @Setter
+        public static class PolicyOverride {
+            private Integer slidingWindowSize;
+            private Integer minimumNumberOfCalls;
+            private Float failureRateThreshold;
+            private Float slowCallRateThreshold;
+            private Duration slowCallDuration;
+            private Duration waitDurationInOpenState;
+            private Integer permittedCallsInHalfOpenState;
+            private Integer maxConcurrentCalls;
+
+            Policy applyTo(Policy defaults) {
+                Policy merged = new Policy();
+                merged.setSlidingWindowSize(slidingWindowSize != null ? slidingWindowSize : defaults.getSlidingWindowSize());
+                merged.setMinimumNumberOfCalls(minimumNumberOfCalls != null ? minimumNumberOfCalls : defaults.getMinimumNumberOfCalls());
+                merged.setFailureRateThreshold(failureRateThreshold != null ? failureRateThreshold : defaults.getFailureRateThreshold());
+                merged.setSlowCallRateThreshold(slowCallRateThreshold != null ? slowCallRateThreshold : defaults.getSlowCallRateThreshold());
+                merged.setSlowCallDuration(slowCallDuration != null ? slowCallDuration : defaults.getSlowCallDuration());
+                merged.setWaitDurationInOpenState(waitDurationInOpenState != null
+                        ? waitDurationInOpenState : defaults.getWaitDurationInOpenState());
+                merged.setPermittedCallsInHalfOpenState(permittedCallsInHalfOpenState != null
+                        ? permittedCallsInHalfOpenState : defaults.getPermittedCallsInHalfOpenState());
+                merged.setMaxConcurrentCalls(maxConcurrentCalls != null ? maxConcurrentCalls : defaults.getMaxConcurrentCalls());
+                return merged;
+            }
         }
     }
 
+    @Getter
+    @Setter
+    public static class Retry {
+        private boolean enabled = true;
+        private int maxRetries = 2;
+        private Duration baseDelay = Duration.ofMillis(50);
+        private Duration maxDelay = Duration.ofSeconds(1);
+        private double budgetRatio = 0.1;
+        private int budgetMinPerSecond = 5;
+        private Hedging hedging = new Hedging();
 
+        @Getter
+        @Setter
+        public static class Hedging {
+            private boolean enabled = false;
+            private double percentile = 0.95;
+            private Duration minDelay = Duration.ofMillis(20);
+            private long minSamples = 100;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class ConcurrencyLimit {
+        private boolean enabled = false;
+        private int initialLimit = 200;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        private double smoothing = 0.2;
+        private double rttTolerance = 1.5;
+        private int longWindow = 600;
+        private double backoffRatio = 0.9;
+        private Duration maxQueueWait = Duration.ofMillis(50);
+        private int maxQueued = 200;
+    }
+
+    @Getter
+    @Setter
+    public static class Readiness {
+        private boolean enabled = false;
+        private int minConnections = 4;
+        private Duration timeout = Duration.ofSeconds(10);
+    }
 }
@@ -1,24 +1,86 @@
 package ecom.keycloakgw.infrastructure.config;
 
+import ecom.keycloakgw.infrastructure.client.RequestIdPropagationFilter;
+import ecom.keycloakgw.infrastructure.metrics.KeycloakClientMetrics;
+import ecom.keycloakgw.infrastructure.resilience.AdaptiveConcurrencyLimiter;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.WriteTimeoutHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.JacksonJsonDecoder;
+import org.springframework.http.codec.json.JacksonJsonEncoder;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import tools.jackson.databind.json.JsonMapper;
 
-import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebClientConfig {
 
+    private static final String WRITE_TIMEOUT_HANDLER = "keycloakWriteTimeout";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider keycloakConnectionProvider(KeycloakProperties properties) {
+        KeycloakProperties.Http http = properties.getHttp();
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(http.getPoolName())
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+                .maxIdleTime(http.getMaxIdleTime())
+                .maxLifeTime(http.getMaxLifeTime())
+                .evictInBackground(http.getEvictInBackground())
+                .metrics(true);
+
+        if (usesHttp2(http)) {
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(http.getMaxConnections())
+                    .maxConcurrentStreams(http.getMaxConcurrentStreams())
+                    .minConnections(1)
+                    .build());
+        }
+        return builder.build();
+    }
+
     @Bean
-    public WebClient keycloakWebClient(KeycloakProperties properties) {
-        HttpClient httpClient = HttpClient.create()
-                .responseTimeout(Duration.ofSeconds(30));
+    public WebClient keycloakWebClient(KeycloakProperties properties, ConnectionProvider keycloakConnectionProvider,
+                                       AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                       KeycloakClientMetrics clientMetrics,
+                                       RequestIdPropagationFilter requestIdPropagation,
+                                       JsonMapper jsonMapper) {
+        KeycloakProperties.Http http = properties.getHttp();
+
+        HttpClient httpClient = HttpClient.create(keycloakConnectionProvider)
+                .protocol(http.getProtocols().toArray(HttpProtocol[]::new))
+                .keepAlive(http.isKeepAlive())
+                .option(ChannelOption.SO_KEEPALIVE, http.isKeepAlive())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                // Covers every read from sending the request to the end of the response body
+                .responseTimeout(http.getResponseTimeout())
+                // Only while the request is written, so pooled channels do not carry the timer while idle
+                .doOnRequest((request, connection) -> connection.addHandlerLast(WRITE_TIMEOUT_HANDLER,
+                        new WriteTimeoutHandler(http.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS)))
+                .doAfterRequest((request, connection) -> connection.removeHandler(WRITE_TIMEOUT_HANDLER));
 
         return WebClient.builder()
                 .baseUrl(properties.getBaseUrl())
                 .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jacksonJsonDecoder(new JacksonJsonDecoder(jsonMapper));
+                    codecs.defaultCodecs().jacksonJsonEncoder(new JacksonJsonEncoder(jsonMapper));
+                })
+                .filter(requestIdPropagation)
+                .filter(concurrencyLimiter)
+                .filter(clientMetrics)
                 .build();
     }
+
+    private static boolean usesHttp2(KeycloakProperties.Http http) {
+        return http.getProtocols().contains(HttpProtocol.H2) || http.getProtocols().contains(HttpProtocol.H2C);
+    }
 }
@@ -0,0 +1,172 @@
+package ecom.keycloakgw.infrastructure.filter;
+
+import ecom.keycloakgw.application.dto.ApiResponse;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.infrastructure.config.GatewayProperties;
+import ecom.keycloakgw.infrastructure.json.JsonCodecs;
+import ecom.keycloakgw.infrastructure.ratelimit.RateLimiter;
+import ecom.log.utils.LoggerUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-IP and per-username token buckets for the password-grant endpoints, so that
+ * credential-stuffing bursts are turned away with 429 before they reach Keycloak. The
+ * username bucket needs the request body, which is buffered (up to a small limit) and
+ * replayed to the controller.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RateLimitWebFilter implements WebFilter {
+
+    private static final String DIMENSION_IP = "ip";
+    private static final String DIMENSION_USERNAME = "username";
+
+    private final RateLimiter rateLimiter;
+    private final GatewayProperties.RateLimit config;
+    private final ObjectReader bodyReader;
+    private final ObjectWriter errorWriter;
+    private final Counter rateLimitedErrors;
+    private final Counter bodyTooLargeErrors;
+    private final Map<String, GatewayProperties.Route> routes = new HashMap<>();
+
+    public RateLimitWebFilter(RateLimiter rateLimiter, GatewayProperties properties, JsonCodecs jsonCodecs,
+                              MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.config = properties.getRateLimit();
+        this.bodyReader = jsonCodecs.reader(Map.class);
+        this.errorWriter = jsonCodecs.envelopeWriter(Void.class);
+        this.rateLimitedErrors = errorCounter(meterRegistry, ErrorCode.TOO_MANY_REQUESTS);
+        this.bodyTooLargeErrors = errorCounter(meterRegistry, ErrorCode.INVALID_REQUEST);
+        for (GatewayProperties.Route route : config.getRoutes()) {
+            routes.put(route.getPath(), route);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!config.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        GatewayProperties.Route route = routes.get(path);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        if (route.getPerIp() != null) {
+            long waitNanos = rateLimiter.tryAcquire(path, DIMENSION_IP, clientIp(exchange.getRequest()), route.getPerIp());
+            if (waitNanos > 0) {
+                return reject(exchange, path, DIMENSION_IP, waitNanos);
+            }
+        }
+        if (route.getPerUsername() == null) {
+            return chain.filter(exchange);
+        }
+
+        return DataBufferUtils.join(exchange.getRequest().getBody(), config.getMaxBodyBytes())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(body -> {
+                    String username = username(body);
+                    if (username != null) {
+                        long waitNanos = rateLimiter.tryAcquire(path, DIMENSION_USERNAME, username, route.getPerUsername());
+                        if (waitNanos > 0) {
+                            return reject(exchange, path, DIMENSION_USERNAME, waitNanos);
+                        }
+                    }
+                    return chain.filter(exchange.mutate().request(replay(exchange, body)).build());
+                })
+                .onErrorResume(DataBufferLimitException.class, ex -> {
+                    bodyTooLargeErrors.increment();
+                    return write(exchange, HttpStatus.CONTENT_TOO_LARGE,
+                            ErrorCode.INVALID_REQUEST.getCode(), "Request body too large");
+                });
+    }
+
+    private String username(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            Object username = bodyReader.<Map<?, ?>>readValue(body).get("username");
+            return username instanceof String value && !value.isBlank() ? value.toLowerCase(Locale.ROOT) : null;
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    private static ServerHttpRequest replay(ServerWebExchange exchange, byte[] body) {
+        return new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        if (remote == null) {
+            return "unknown";
+        }
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, String path, String dimension, long waitNanos) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        LoggerUtils.warn(RateLimitWebFilter.class, "Rate limit exceeded on {} by {}, retry after {}s",
+                path, dimension, retryAfterSeconds);
+        rateLimitedErrors.increment();
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return write(exchange, HttpStatus.TOO_MANY_REQUESTS,
+                ErrorCode.TOO_MANY_REQUESTS.getCode(), ErrorCode.TOO_MANY_REQUESTS.getMessage());
+    }
+
+    // Same meter as GlobalExceptionHandler, which never sees the requests rejected here
+    private static Counter errorCounter(MeterRegistry meterRegistry, ErrorCode errorCode) {
+        return Counter.builder("gateway.errors")
+                .tag("code", errorCode.getCode())
+                .tag("error", errorCode.name())
+                .register(meterRegistry);
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, HttpStatus status, String code, String message) {
+        String requestId = (String) exchange.getAttributes().getOrDefault(RequestIdWebFilter.REQUEST_ID_KEY, "");
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = errorWriter.writeValueAsBytes(ApiResponse.error(requestId, code, message));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
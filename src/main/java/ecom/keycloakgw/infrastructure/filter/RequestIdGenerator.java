@@ -0,0 +1,62 @@
+package ecom.keycloakgw.infrastructure.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Request and span ids without {@link java.util.UUID}: no {@code SecureRandom} on the
+ * request path and no intermediate strings. A request id is 32 lowercase hex digits
+ * (48 bits of epoch millis, a 16-bit node id picked at startup, 64 random bits), so it
+ * sorts roughly by time and is also a valid W3C trace-id.
+ */
+public final class RequestIdGenerator {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final long NODE_ID = new SecureRandom().nextInt(1 << 16);
+
+    private RequestIdGenerator() {
+    }
+
+    public static String requestId() {
+        byte[] id = new byte[32];
+        writeHex(id, 0, System.currentTimeMillis() << 16 | NODE_ID);
+        writeHex(id, 16, ThreadLocalRandom.current().nextLong());
+        return new String(id, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 16 hex digits, never all zeros, for the parent-id of an outbound {@code traceparent}.
+     */
+    public static String spanId() {
+        long value;
+        do {
+            value = ThreadLocalRandom.current().nextLong();
+        } while (value == 0);
+        byte[] id = new byte[16];
+        writeHex(id, 0, value);
+        return new String(id, StandardCharsets.ISO_8859_1);
+    }
+
+    public static boolean isHex(String value, int length) {
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        boolean allZeros = true;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+            allZeros &= c == '0';
+        }
+        return !allZeros;
+    }
+
+    private static void writeHex(byte[] target, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            target[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package ecom.keycloakgw.infrastructure.filter;
 
-import org.slf4j.MDC;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -12,23 +12,38 @@ import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 import reactor.util.context.Context;
 
-import java.util.Optional;
-import java.util.UUID;
-
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class RequestIdWebFilter implements WebFilter {
 
     public static final String REQUEST_ID_HEADER = "X-Request-Id";
     public static final String REQUEST_ID_KEY = "requestId";
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final String TRACE_ID_KEY = "traceId";
+    public static final String TRACE_FLAGS_KEY = "traceFlags";
+
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
 
-        String requestId = Optional.ofNullable(request.getHeaders().getFirst(REQUEST_ID_HEADER))
-                .filter(id -> !id.isBlank())
-                .orElse(UUID.randomUUID().toString().replace("-", ""));
+        // The id is forwarded to Keycloak, so only accept short, header-safe values
+        String incoming = request.getHeaders().getFirst(REQUEST_ID_HEADER);
+        String requestId = isUsableRequestId(incoming) ? incoming : RequestIdGenerator.requestId();
+
+        // Continue the caller's W3C trace when there is one, otherwise start a trace whose
+        // id is the request id when that has the right shape
+        String traceparent = request.getHeaders().getFirst(TRACEPARENT_HEADER);
+        String traceId;
+        String traceFlags;
+        if (isValidTraceparent(traceparent)) {
+            traceId = traceparent.substring(3, 35);
+            traceFlags = traceparent.substring(53, 55);
+        } else {
+            traceId = RequestIdGenerator.isHex(requestId, 32) ? requestId : RequestIdGenerator.requestId();
+            traceFlags = "01";
+        }
 
         // Set response header
         ServerHttpResponse response = exchange.getResponse();
@@ -36,10 +51,43 @@ public class RequestIdWebFilter implements WebFilter {
 
         // Put requestId into exchange attributes for easy access in controllers
         exchange.getAttributes().put(REQUEST_ID_KEY, requestId);
+        exchange.getAttributes().put(TRACE_ID_KEY, traceId);
+
+        // Only the synchronous part of the chain, up to reading the body, runs on this
+        // thread; controller entry points and later log calls take the keys from the
+        // Reactor context through ContextMdc
+        return ContextMdc.subscribeWithMdc(chain.filter(exchange))
+                .contextWrite(Context.of(REQUEST_ID_KEY, requestId, TRACE_ID_KEY, traceId, TRACE_FLAGS_KEY, traceFlags));
+    }
+
+    private static boolean isUsableRequestId(String id) {
+        if (id == null || id.isEmpty() || id.length() > MAX_REQUEST_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            boolean allowed = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || c == '-' || c == '_' || c == '.';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // version 00: 00-<32 hex trace-id>-<16 hex parent-id>-<2 hex flags>
+    private static boolean isValidTraceparent(String traceparent) {
+        return traceparent != null
+                && traceparent.length() == 55
+                && traceparent.startsWith("00-")
+                && traceparent.charAt(35) == '-'
+                && traceparent.charAt(52) == '-'
+                && RequestIdGenerator.isHex(traceparent.substring(3, 35), 32)
+                && RequestIdGenerator.isHex(traceparent.substring(36, 52), 16)
+                && isHexOrZero(traceparent.substring(53, 55));
+    }
 
-        return chain.filter(exchange)
-                .contextWrite(Context.of(REQUEST_ID_KEY, requestId))
-                .doFirst(() -> MDC.put(REQUEST_ID_KEY, requestId))
-                .doFinally(signalType -> MDC.remove(REQUEST_ID_KEY));
+    private static boolean isHexOrZero(String value) {
+        return "00".equals(value) || RequestIdGenerator.isHex(value, value.length());
     }
 }
@@ -0,0 +1,100 @@
+package ecom.keycloakgw.infrastructure.json;
+
+import ecom.keycloakgw.application.dto.ApiResponse;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.ser.std.StdSerializer;
+import tools.jackson.databind.util.TokenBuffer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes {@link ApiResponse} with direct getter calls and pre-encoded property names instead
+ * of the reflective bean serializer. The output is the same: declaration order, null
+ * properties left out, and {@code status}, {@code data} and {@code timestamp} written by
+ * the serializers the mapper would pick for them.
+ * <p>
+ * Formatting the timestamp is the most expensive part of a small envelope. {@code CoarseClock}
+ * hands out one instance per millisecond, so the last formatted timestamp is kept and
+ * written again while the same instance keeps coming back.
+ */
+public class ApiResponseSerializer extends StdSerializer<ApiResponse<?>> {
+
+    private static final SerializableString REQUEST_ID = new SerializedString("requestId");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString CODE = new SerializedString("code");
+    private static final SerializableString MESSAGE = new SerializedString("message");
+    private static final SerializableString DATA = new SerializedString("data");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+
+    private record FormattedTimestamp(LocalDateTime time, ValueSerializer<Object> serializer,
+                                      SerializableString json) {
+    }
+
+    private volatile FormattedTimestamp lastTimestamp = new FormattedTimestamp(null, null, null);
+
+    public ApiResponseSerializer() {
+        super(ApiResponse.class);
+    }
+
+    @Override
+    public void serialize(ApiResponse<?> value, JsonGenerator gen, SerializationContext ctxt) throws JacksonException {
+        gen.writeStartObject(value);
+        if (value.getRequestId() != null) {
+            gen.writeName(REQUEST_ID);
+            gen.writeString(value.getRequestId());
+        }
+        if (value.getStatus() != null) {
+            gen.writeName(STATUS);
+            ctxt.findValueSerializer(value.getStatus().getClass()).serialize(value.getStatus(), gen, ctxt);
+        }
+        if (value.getCode() != null) {
+            gen.writeName(CODE);
+            gen.writeString(value.getCode());
+        }
+        if (value.getMessage() != null) {
+            gen.writeName(MESSAGE);
+            gen.writeString(value.getMessage());
+        }
+        Object data = value.getData();
+        if (data != null) {
+            gen.writeName(DATA);
+            ctxt.findValueSerializer(data.getClass()).serialize(data, gen, ctxt);
+        }
+        if (value.getTimestamp() != null) {
+            gen.writeName(TIMESTAMP);
+            writeTimestamp(value.getTimestamp(), gen, ctxt);
+        }
+        gen.writeEndObject();
+    }
+
+    private void writeTimestamp(LocalDateTime timestamp, JsonGenerator gen, SerializationContext ctxt) {
+        ValueSerializer<Object> serializer = ctxt.findValueSerializer(LocalDateTime.class);
+        FormattedTimestamp last = lastTimestamp;
+        if (last.time() == timestamp && last.serializer() == serializer) {
+            gen.writeString(last.json());
+            return;
+        }
+        String text = null;
+        try (TokenBuffer buffer = ctxt.bufferForValueConversion()) {
+            serializer.serialize(timestamp, buffer, ctxt);
+            JsonParser parser = buffer.asParser();
+            if (parser.nextToken() == JsonToken.VALUE_STRING) {
+                text = parser.getString();
+            }
+        }
+        if (text == null) {
+            serializer.serialize(timestamp, gen, ctxt);
+            return;
+        }
+        SerializableString json = new SerializedString(text);
+        lastTimestamp = new FormattedTimestamp(timestamp, serializer, json);
+        gen.writeString(json);
+    }
+}
@@ -0,0 +1,65 @@
+package ecom.keycloakgw.infrastructure.json;
+
+import ecom.keycloakgw.application.dto.ApiResponse;
+import ecom.keycloakgw.application.dto.response.CreateUserResponse;
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.application.dto.response.JwksResponse;
+import ecom.keycloakgw.application.dto.response.RoleResponse;
+import ecom.keycloakgw.application.dto.response.TokenResponse;
+import ecom.keycloakgw.application.dto.response.UserResponse;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Readers for the Keycloak response DTOs and writers for their {@link ApiResponse}
+ * envelopes, built once from the application {@link JsonMapper}. Building them up front
+ * resolves each root (de)serializer at startup instead of on the first request that needs it.
+ */
+@Component
+public class JsonCodecs {
+
+    /** DTOs in {@code application.dto.response}. */
+    static final List<Class<?>> RESPONSE_TYPES = List.of(
+            TokenResponse.class, IntrospectResponse.class, UserResponse.class,
+            RoleResponse.class, JwksResponse.class, CreateUserResponse.class);
+
+    private final JsonMapper jsonMapper;
+    private final Map<Class<?>, ObjectReader> readers = new HashMap<>();
+    private final Map<Class<?>, ObjectWriter> envelopeWriters = new HashMap<>();
+
+    public JsonCodecs(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+        for (Class<?> type : RESPONSE_TYPES) {
+            readers.put(type, jsonMapper.readerFor(type));
+            envelopeWriters.put(type, envelopeWriter(jsonMapper, type));
+        }
+        envelopeWriters.put(Void.class, envelopeWriter(jsonMapper, Void.class));
+        envelopeWriters.put(String.class, envelopeWriter(jsonMapper, String.class));
+    }
+
+    public JsonMapper getMapper() {
+        return jsonMapper;
+    }
+
+    /** Reader for {@code type}; types outside the registered DTOs get a fresh one. */
+    public ObjectReader reader(Class<?> type) {
+        ObjectReader reader = readers.get(type);
+        return reader != null ? reader : jsonMapper.readerFor(type);
+    }
+
+    /** Writer for {@code ApiResponse<dataType>}; error envelopes use {@code Void}. */
+    public ObjectWriter envelopeWriter(Class<?> dataType) {
+        ObjectWriter writer = envelopeWriters.get(dataType);
+        return writer != null ? writer : envelopeWriter(jsonMapper, dataType);
+    }
+
+    private static ObjectWriter envelopeWriter(JsonMapper jsonMapper, Class<?> dataType) {
+        return jsonMapper.writerFor(jsonMapper.getTypeFactory().constructParametricType(ApiResponse.class, dataType));
+    }
+}
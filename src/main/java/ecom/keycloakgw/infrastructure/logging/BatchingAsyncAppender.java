@@ -0,0 +1,221 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves log I/O off request threads. Events go into a bounded queue; one worker drains
+ * them in batches, hands each event to every attached appender and then flushes the
+ * file appenders once per batch (configure those with {@code immediateFlush=false}).
+ * The {@code <maskPattern>} keys are masked in the message and exception messages once
+ * per event, on the worker, before the event is handed out, so the attached appenders
+ * use plain pattern layouts. Attach an appender to one instance only, so that a single
+ * worker writes and flushes it. On shutdown the worker writes out what is already queued
+ * for at most {@code maxFlushTime} milliseconds; what is left after that counts as dropped.
+ */
+public class BatchingAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder dropped = new LongAdder();
+    private final List<String> maskPatterns = new ArrayList<>();
+
+    private int queueSize = 8192;
+    private int maxBatchSize = 256;
+    private int discardingThreshold = -1;
+    private EDropPolicy dropPolicy = EDropPolicy.DISCARD_BELOW_WARN;
+    private long maxFlushTime = 1000;
+
+    private LogMasker masker = LogMasker.of(List.of());
+    private BlockingQueue<ILoggingEvent> queue;
+    private Thread worker;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (queueSize < 1 || maxBatchSize < 1) {
+            addError("queueSize and maxBatchSize must be positive for appender [" + name + "]");
+            return;
+        }
+        if (discardingThreshold < 0) {
+            discardingThreshold = queueSize / 5;
+        }
+        masker = LogMasker.of(maskPatterns);
+        queue = new ArrayBlockingQueue<>(queueSize);
+        worker = new Thread(this::drain, "logback-batching-" + name);
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        try {
+            worker.join(maxFlushTime + POLL_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            addWarn("Appender [" + name + "] gave up flushing after " + maxFlushTime + " ms with "
+                    + queue.size() + " events queued");
+        }
+        if (dropped.sum() > 0) {
+            addWarn("Appender [" + name + "] dropped " + dropped.sum() + " events");
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (dropPolicy == EDropPolicy.DISCARD_BELOW_WARN
+                && queue.remainingCapacity() < discardingThreshold
+                && !event.getLevel().isGreaterOrEqual(Level.WARN)) {
+            dropped.increment();
+            return;
+        }
+        // MDC, thread name and the formatted message must be captured on the caller thread
+        event.prepareForDeferredProcessing();
+        if (dropPolicy == EDropPolicy.BLOCK) {
+            try {
+                queue.put(event);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+            }
+        } else if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        List<ILoggingEvent> batch = new ArrayList<>(maxBatchSize);
+        while (isStarted()) {
+            ILoggingEvent first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                break;
+            }
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxFlushTime);
+        while (!queue.isEmpty() && System.nanoTime() - deadline < 0) {
+            queue.drainTo(batch, maxBatchSize);
+            write(batch);
+        }
+        dropped.add(queue.size());
+        queue.clear();
+    }
+
+    private void write(List<ILoggingEvent> batch) {
+        for (ILoggingEvent event : batch) {
+            appenders.appendLoopOnAppenders(MaskedLoggingEvent.of(masker, event));
+        }
+        batch.clear();
+        flush();
+    }
+
+    private void flush() {
+        Iterator<Appender<ILoggingEvent>> it = appenders.iteratorForAppenders();
+        while (it.hasNext()) {
+            if (it.next() instanceof OutputStreamAppender<ILoggingEvent> stream
+                    && stream.isStarted() && !stream.isImmediateFlush() && stream.getOutputStream() != null) {
+                try {
+                    stream.getOutputStream().flush();
+                } catch (IOException ex) {
+                    addError("Failed to flush appender [" + stream.getName() + "]", ex);
+                }
+            }
+        }
+    }
+
+    public void addMaskPattern(String maskPattern) {
+        maskPatterns.add(maskPattern);
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public void setDropPolicy(EDropPolicy dropPolicy) {
+        this.dropPolicy = dropPolicy;
+    }
+
+    public void setMaxFlushTime(long maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,124 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import org.slf4j.MDC;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoOperator;
+import reactor.core.publisher.Signal;
+import reactor.util.context.ContextView;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Copies the request's correlation keys from the Reactor {@link ContextView} into the MDC
+ * only for the duration of a log call, then puts back whatever the thread had before.
+ * A request hops between event-loop threads, so an MDC set once per request ends up on
+ * the wrong thread; restoring it on every operator instead (automatic context
+ * propagation) costs on every signal, logged or not.
+ * <p>
+ * Callback logs use {@code .doOnEach(ContextMdc.onNext(value -> LoggerUtils.info(...)))};
+ * code that already holds the context calls {@link #run(ContextView, Runnable)}, and
+ * controller entry points and {@code flatMap}-style callbacks that log or start client
+ * calls use {@link #deferWithMdc(Supplier)}. The request filter can only cover the work
+ * done before the body is read, so each entry point sets the MDC again itself.
+ */
+public final class ContextMdc {
+
+    public static final String USER_ID_KEY = "userId";
+
+    private static final String[] KEYS = {
+            RequestIdWebFilter.REQUEST_ID_KEY, USER_ID_KEY, RequestIdWebFilter.TRACE_ID_KEY};
+
+    private ContextMdc() {
+    }
+
+    public static void run(ContextView context, Runnable logStatement) {
+        run(key -> context.getOrDefault(key, null), logStatement);
+    }
+
+    /**
+     * For synchronous code that has the exchange attributes but no Reactor context, such
+     * as exception handlers.
+     */
+    public static void run(Map<String, Object> attributes, Runnable logStatement) {
+        run(attributes::get, logStatement);
+    }
+
+    public static <T> Consumer<Signal<T>> onNext(Consumer<? super T> logStatement) {
+        return signal -> {
+            if (signal.isOnNext()) {
+                run(signal.getContextView(), () -> logStatement.accept(signal.get()));
+            }
+        };
+    }
+
+    public static <T> Consumer<Signal<T>> onError(Consumer<Throwable> logStatement) {
+        return signal -> {
+            if (signal.isOnError()) {
+                run(signal.getContextView(), () -> logStatement.accept(signal.getThrowable()));
+            }
+        };
+    }
+
+    /**
+     * Sets the MDC around the synchronous part of subscribing to {@code source}: the
+     * controller, service and client code that runs before the first thread hop. The
+     * subscriber's context must already hold the keys, so apply
+     * {@code contextWrite} after this operator.
+     */
+    public static <T> Mono<T> subscribeWithMdc(Mono<T> source) {
+        return new MonoOperator<>(source) {
+            @Override
+            public void subscribe(CoreSubscriber<? super T> actual) {
+                run(actual.currentContext(), () -> source.subscribe(actual));
+            }
+        };
+    }
+
+    public static <T> Flux<T> subscribeWithMdc(Flux<T> source) {
+        return new FluxOperator<>(source) {
+            @Override
+            public void subscribe(CoreSubscriber<? super T> actual) {
+                run(actual.currentContext(), () -> source.subscribe(actual));
+            }
+        };
+    }
+
+    /**
+     * {@link Mono#defer} whose supplier runs with the MDC set, for callbacks that run after
+     * the request has changed threads and log, or assemble client calls that log, before
+     * returning their {@code Mono}.
+     */
+    public static <T> Mono<T> deferWithMdc(Supplier<? extends Mono<? extends T>> supplier) {
+        return subscribeWithMdc(Mono.defer(supplier));
+    }
+
+    private static void run(Function<String, Object> lookup, Runnable action) {
+        String[] previous = new String[KEYS.length];
+        for (int i = 0; i < KEYS.length; i++) {
+            previous[i] = MDC.get(KEYS[i]);
+            set(KEYS[i], lookup.apply(KEYS[i]));
+        }
+        try {
+            action.run();
+        } finally {
+            for (int i = 0; i < KEYS.length; i++) {
+                set(KEYS[i], previous[i]);
+            }
+        }
+    }
+
+    private static void set(String key, Object value) {
+        if (value != null) {
+            MDC.put(key, value.toString());
+        } else {
+            MDC.remove(key);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+/**
+ * What {@link BatchingAsyncAppender} does when its queue cannot take an event.
+ */
+public enum EDropPolicy {
+    /**
+     * Drop TRACE, DEBUG and INFO once the queue passes the discarding threshold; WARN and
+     * ERROR are only dropped when the queue is completely full.
+     */
+    DISCARD_BELOW_WARN,
+    /**
+     * Drop any event that does not fit in the queue.
+     */
+    DROP_NEWEST,
+    /**
+     * Block the logging thread until there is room. Never loses events, but a slow disk
+     * then stalls request threads.
+     */
+    BLOCK
+}
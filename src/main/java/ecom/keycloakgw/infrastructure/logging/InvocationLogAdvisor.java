@@ -0,0 +1,140 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import ecom.keycloakgw.infrastructure.config.GatewayProperties;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.io.Serial;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Applies {@link InvocationLogInterceptor} to the public methods of {@link LogInvocations}
+ * beans. The proxy creator asks the class filter about every bean at startup; for the
+ * annotated ones that is where each method's {@link InvocationLogPlan} is built from the
+ * defaults and the matching {@code methods} rules, so calls only look the plan up.
+ * Methods whose plan neither samples nor times calls are not intercepted.
+ * <p>
+ * The configuration is supplied lazily and read only for annotated classes, so the
+ * advisor can be created with the other infrastructure beans without pulling the
+ * properties bean in ahead of the post-processors.
+ * <p>
+ * Rules are named {@code Type.method}, {@code Type.*} or {@code *.method} with the simple
+ * class name; every matching rule applies in list order, later values winning.
+ */
+public class InvocationLogAdvisor extends StaticMethodMatcherPointcutAdvisor implements ClassFilter {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient Supplier<GatewayProperties.InvocationLogging> config;
+    private final transient Map<Method, InvocationLogPlan> plans;
+    private final transient ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+
+    public InvocationLogAdvisor(Supplier<GatewayProperties.InvocationLogging> config) {
+        this(config, new ConcurrentHashMap<>());
+    }
+
+    private InvocationLogAdvisor(Supplier<GatewayProperties.InvocationLogging> config,
+                                 Map<Method, InvocationLogPlan> plans) {
+        super(new InvocationLogInterceptor(plans));
+        this.config = config;
+        this.plans = plans;
+    }
+
+    @Override
+    public ClassFilter getClassFilter() {
+        return this;
+    }
+
+    @Override
+    public boolean matches(Class<?> type) {
+        if (!AnnotatedElementUtils.hasAnnotation(type, LogInvocations.class)) {
+            return false;
+        }
+        GatewayProperties.InvocationLogging logging = config.get();
+        if (!logging.isEnabled()) {
+            return false;
+        }
+        for (Method method : type.getMethods()) {
+            if (method.getDeclaringClass() != Object.class) {
+                plans.computeIfAbsent(method, m -> buildPlan(logging, type, m));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        InvocationLogPlan plan = plans.get(AopUtils.getMostSpecificMethod(method, targetClass));
+        if (plan == null || !plan.isActive()) {
+            return false;
+        }
+        // a proxy may be invoked through the interface method
+        plans.putIfAbsent(method, plan);
+        return true;
+    }
+
+    private InvocationLogPlan buildPlan(GatewayProperties.InvocationLogging logging, Class<?> type, Method method) {
+        double sampleRate = logging.getSampleRate();
+        Duration slowThreshold = logging.getSlowThreshold();
+        boolean logArguments = logging.isLogArguments();
+        for (GatewayProperties.MethodRule rule : logging.getMethods()) {
+            if (!ruleMatches(rule.getName(), type.getSimpleName(), method.getName())) {
+                continue;
+            }
+            if (rule.getSampleRate() != null) {
+                sampleRate = rule.getSampleRate();
+            }
+            if (rule.getSlowThreshold() != null) {
+                slowThreshold = rule.getSlowThreshold();
+            }
+            if (rule.getLogArguments() != null) {
+                logArguments = rule.getLogArguments();
+            }
+        }
+        long slowThresholdNanos = slowThreshold == null ? 0 : slowThreshold.toNanos();
+        return new InvocationLogPlan(type, type.getSimpleName() + "." + method.getName(), sampleRate,
+                slowThresholdNanos, logArguments ? arguments(method) : null);
+    }
+
+    private static boolean ruleMatches(String name, String typeName, String methodName) {
+        int dot = name.indexOf('.');
+        String typePart = dot < 0 ? name : name.substring(0, dot);
+        String methodPart = dot < 0 ? "*" : name.substring(dot + 1);
+        return ("*".equals(typePart) || typePart.equals(typeName))
+                && ("*".equals(methodPart) || methodPart.equals(methodName));
+    }
+
+    private InvocationLogPlan.Argument[] arguments(Method method) {
+        String[] names = parameterNames.getParameterNames(method);
+        Parameter[] parameters = method.getParameters();
+        List<InvocationLogPlan.Argument> arguments = new ArrayList<>();
+        for (int i = 0; i < parameters.length; i++) {
+            Class<?> type = parameters[i].getType();
+            if (ServerWebExchange.class.isAssignableFrom(type) || ServerHttpRequest.class.isAssignableFrom(type)
+                    || ServerHttpResponse.class.isAssignableFrom(type)) {
+                continue;
+            }
+            String name = names != null ? names[i] : parameters[i].getName();
+            boolean redacted = parameters[i].isAnnotationPresent(RequestHeader.class)
+                    || "authorization".equalsIgnoreCase(name);
+            arguments.add(new InvocationLogPlan.Argument(i, name, redacted));
+        }
+        return arguments.toArray(InvocationLogPlan.Argument[]::new);
+    }
+}
@@ -0,0 +1,116 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import ecom.log.utils.LoggerUtils;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.util.context.ContextView;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs a sample of the calls to a method and every call slower than its threshold. A call
+ * that is neither sampled nor timed goes straight through; for {@link Mono} and
+ * {@link Flux} results the time runs until the publisher terminates or is cancelled, so
+ * a call abandoned by a timeout or a disconnected client is still reported. Arguments are
+ * only rendered when a line is actually written.
+ */
+class InvocationLogInterceptor implements MethodInterceptor {
+
+    private static final String CANCELLED = "cancelled";
+
+    private final Map<Method, InvocationLogPlan> plans;
+
+    InvocationLogInterceptor(Map<Method, InvocationLogPlan> plans) {
+        this.plans = plans;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        InvocationLogPlan plan = plans.get(invocation.getMethod());
+        if (plan == null) {
+            return invocation.proceed();
+        }
+        boolean sampled = plan.sample();
+        if (!sampled && !plan.timesEveryCall()) {
+            return invocation.proceed();
+        }
+        Object[] arguments = invocation.getArguments();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable ex) {
+            log(plan, sampled, start, arguments, outcome(ex));
+            throw ex;
+        }
+        if (result instanceof Mono<?> mono) {
+            // doOnCancel has no signal to carry the context, so it is captured per subscription
+            return mono.transformDeferredContextual((source, context) -> source
+                    .doOnEach(signal -> onTerminal(signal, plan, sampled, start, arguments))
+                    .doOnCancel(() -> onCancel(context, plan, sampled, start, arguments)));
+        }
+        if (result instanceof Flux<?> flux) {
+            return flux.transformDeferredContextual((source, context) -> source
+                    .doOnEach(signal -> onTerminal(signal, plan, sampled, start, arguments))
+                    .doOnCancel(() -> onCancel(context, plan, sampled, start, arguments)));
+        }
+        log(plan, sampled, start, arguments, outcome(null));
+        return result;
+    }
+
+    private static void onTerminal(Signal<?> signal, InvocationLogPlan plan, boolean sampled, long start,
+                                   Object[] arguments) {
+        if (signal.isOnComplete() || signal.isOnError()) {
+            ContextMdc.run(signal.getContextView(),
+                    () -> log(plan, sampled, start, arguments, outcome(signal.getThrowable())));
+        }
+    }
+
+    private static void onCancel(ContextView context, InvocationLogPlan plan, boolean sampled, long start,
+                                 Object[] arguments) {
+        ContextMdc.run(context, () -> log(plan, sampled, start, arguments, CANCELLED));
+    }
+
+    private static void log(InvocationLogPlan plan, boolean sampled, long start, Object[] arguments, String outcome) {
+        long elapsed = System.nanoTime() - start;
+        if (plan.isSlow(elapsed)) {
+            LoggerUtils.warn(plan.type(), "Slow call {} took {} ms (threshold {} ms), outcome={}, args={}",
+                    plan.name(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    TimeUnit.NANOSECONDS.toMillis(plan.slowThresholdNanos()), outcome,
+                    new RenderedArguments(plan, arguments));
+        } else if (sampled) {
+            LoggerUtils.info(plan.type(), "{} took {} ms, outcome={}, args={}",
+                    plan.name(), TimeUnit.NANOSECONDS.toMillis(elapsed), outcome,
+                    new RenderedArguments(plan, arguments));
+        }
+    }
+
+    private static String outcome(Throwable error) {
+        return error == null ? "ok" : error.toString();
+    }
+
+    /** Formats the arguments when the logger formats the message, not before. */
+    private record RenderedArguments(InvocationLogPlan plan, Object[] values) {
+
+        @Override
+        public String toString() {
+            if (plan.arguments() == null) {
+                return "-";
+            }
+            StringBuilder text = new StringBuilder("[");
+            for (InvocationLogPlan.Argument argument : plan.arguments()) {
+                if (text.length() > 1) {
+                    text.append(", ");
+                }
+                text.append(argument.name()).append('=');
+                text.append(argument.redacted() ? "***" : String.valueOf(values[argument.index()]));
+            }
+            return text.append(']').toString();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * What {@link InvocationLogInterceptor} does for one method, resolved once at startup.
+ *
+ * @param arguments the parameters to render, or {@code null} when arguments are not logged
+ */
+record InvocationLogPlan(Class<?> type, String name, double sampleRate, long slowThresholdNanos,
+                         Argument[] arguments) {
+
+    /**
+     * A rendered parameter. Exchange, request and response parameters are left out and
+     * {@code redacted} ones, such as the {@code Authorization} header, are logged as {@code ***}.
+     */
+    record Argument(int index, String name, boolean redacted) {
+    }
+
+    /** Methods that are never sampled and have no slow threshold are not proxied at all. */
+    boolean isActive() {
+        return sampleRate > 0 || slowThresholdNanos > 0;
+    }
+
+    boolean sample() {
+        return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    boolean timesEveryCall() {
+        return slowThresholdNanos > 0;
+    }
+
+    boolean isSlow(long elapsedNanos) {
+        return slowThresholdNanos > 0 && elapsedNanos >= slowThresholdNanos;
+    }
+}
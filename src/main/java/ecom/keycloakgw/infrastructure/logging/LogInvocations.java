@@ -0,0 +1,17 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a bean whose public methods are logged by {@link InvocationLogAdvisor}, as
+ * configured under {@code gateway.invocation-logging}.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LogInvocations {
+}
@@ -0,0 +1,294 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Masks the values of sensitive keys ({@code password=...}, {@code "otp": "..."}) in a
+ * log line with exactly the output of {@code ecom.log.pattern.MaskingPatternLayout},
+ * which runs {@code ("?KEY"?\s*[:=]\s*"?)([^",}\s&\])]+)} once per key. Here all keys are
+ * compiled into one Aho-Corasick automaton, so the line is scanned once whatever the
+ * number of keys, and a line without any key is returned untouched without allocating.
+ * <p>
+ * Keys are expected to be identifiers (no quotes, separators or whitespace).
+ */
+public final class LogMasker {
+
+    private static final int ASCII = 128;
+    private static final int ROOT = 0;
+    private static final int NO_EDGE = -1;
+    private static final int[] NO_KEYS = new int[0];
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private final String[] keys;
+    // Full transition table for ASCII input; other characters walk the failure links
+    private final int[] asciiDelta;
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] failure;
+    // Indexes of the keys that end in each state, own and inherited through failure links
+    private final int[][] output;
+
+    private LogMasker(String[] keys, int[] asciiDelta, char[][] labels, int[][] targets, int[] failure, int[][] output) {
+        this.keys = keys;
+        this.asciiDelta = asciiDelta;
+        this.labels = labels;
+        this.targets = targets;
+        this.failure = failure;
+        this.output = output;
+    }
+
+    public static LogMasker of(List<String> maskKeys) {
+        String[] keys = maskKeys.stream().filter(key -> key != null && !key.isEmpty()).toArray(String[]::new);
+
+        int maxStates = Arrays.stream(keys).mapToInt(String::length).sum() + 1;
+        char[][] labels = new char[maxStates][0];
+        int[][] targets = new int[maxStates][0];
+        int[][] output = new int[maxStates][];
+        Arrays.fill(output, NO_KEYS);
+        int states = 1;
+        for (int k = 0; k < keys.length; k++) {
+            int state = ROOT;
+            for (int i = 0; i < keys[k].length(); i++) {
+                char c = keys[k].charAt(i);
+                int next = edge(labels[state], targets[state], c);
+                if (next == NO_EDGE) {
+                    next = states++;
+                    labels[state] = append(labels[state], c);
+                    targets[state] = append(targets[state], next);
+                }
+                state = next;
+            }
+            output[state] = append(output[state], k);
+        }
+
+        labels = Arrays.copyOf(labels, states);
+        targets = Arrays.copyOf(targets, states);
+        output = Arrays.copyOf(output, states);
+        int[] failure = new int[states];
+        int[] asciiDelta = new int[states * ASCII];
+
+        // Breadth-first, so a state's failure target is complete before its children need it
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(ROOT);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (state != ROOT && output[failure[state]].length > 0) {
+                output[state] = concat(output[state], output[failure[state]]);
+            }
+            for (int c = 0; c < ASCII; c++) {
+                int next = edge(labels[state], targets[state], (char) c);
+                asciiDelta[state * ASCII + c] = next != NO_EDGE ? next
+                        : state == ROOT ? ROOT : asciiDelta[failure[state] * ASCII + c];
+            }
+            for (int i = 0; i < labels[state].length; i++) {
+                int child = targets[state][i];
+                failure[child] = state == ROOT ? ROOT : step(labels, targets, failure, failure[state], labels[state][i]);
+                queue.add(child);
+            }
+        }
+        return new LogMasker(keys, asciiDelta, labels, targets, failure, output);
+    }
+
+    /**
+     * @return {@code line} itself when nothing had to be masked
+     */
+    public String mask(String line) {
+        if (line == null) {
+            return line;
+        }
+        Candidates candidates = scan(line);
+        if (candidates == null) {
+            return line;
+        }
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.append(line);
+        apply(candidates, buffer);
+        String masked = buffer.toString();
+        release(buffer);
+        return masked;
+    }
+
+    /**
+     * Masks {@code line} where it is, without copying it.
+     */
+    public void maskInPlace(StringBuilder line) {
+        Candidates candidates = scan(line);
+        if (candidates != null) {
+            apply(candidates, line);
+        }
+    }
+
+    static void release(StringBuilder buffer) {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer.setLength(0);
+            buffer.trimToSize();
+        }
+    }
+
+    /**
+     * One pass over the line collecting every key occurrence followed by a separator and
+     * a value, in order of position. {@code null} when there is none.
+     */
+    private Candidates scan(CharSequence text) {
+        Candidates candidates = null;
+        int state = ROOT;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            state = c < ASCII ? asciiDelta[state * ASCII + c] : step(labels, targets, failure, state, c);
+            int[] ended = output[state];
+            if (ended.length == 0) {
+                continue;
+            }
+            long value = valueAfterKey(text, i + 1);
+            if (value == NO_EDGE) {
+                continue;
+            }
+            if (candidates == null) {
+                candidates = new Candidates();
+            }
+            for (int key : ended) {
+                candidates.add(key, i + 1 - keys[key].length(), (int) (value >>> 32), (int) value);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Replays the per-key regex passes over the candidates: keys in configuration order,
+     * each resuming after its previous match, and skipping occurrences an earlier key has
+     * already masked over.
+     */
+    private void apply(Candidates candidates, StringBuilder line) {
+        for (int key = 0; key < keys.length; key++) {
+            int resume = 0;
+            for (int c = 0; c < candidates.size; c++) {
+                int at = c * 4;
+                int[] data = candidates.data;
+                if (data[at] != key || data[at + 1] < resume || isMasked(line, data[at + 1], keys[key].length())) {
+                    continue;
+                }
+                for (int i = data[at + 2]; i < data[at + 3]; i++) {
+                    line.setCharAt(i, '*');
+                }
+                resume = data[at + 3];
+            }
+        }
+    }
+
+    // Keys never contain '*', so one in the occurrence means an earlier key masked it
+    private static boolean isMasked(StringBuilder line, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (line.charAt(i) == '*') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@code "?\s*[:=]\s*"?} followed by at least one value character.
+     *
+     * @return the value as {@code start << 32 | end}, or {@link #NO_EDGE}
+     */
+    private static long valueAfterKey(CharSequence text, int position) {
+        int length = text.length();
+        int i = position;
+        if (i < length && text.charAt(i) == '"') {
+            i++;
+        }
+        while (i < length && isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        if (i >= length || (text.charAt(i) != ':' && text.charAt(i) != '=')) {
+            return NO_EDGE;
+        }
+        i++;
+        while (i < length && isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        if (i < length && text.charAt(i) == '"') {
+            i++;
+        }
+        int start = i;
+        while (i < length && isValueChar(text.charAt(i))) {
+            i++;
+        }
+        return i == start ? NO_EDGE : (long) start << 32 | i;
+    }
+
+    // java.util.regex \s without UNICODE_CHARACTER_CLASS
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // [^",}\s&\])]
+    private static boolean isValueChar(char c) {
+        return c != '"' && c != ',' && c != '}' && c != '&' && c != ']' && c != ')' && !isWhitespace(c);
+    }
+
+    private static int step(char[][] labels, int[][] targets, int[] failure, int state, char c) {
+        while (true) {
+            int next = edge(labels[state], targets[state], c);
+            if (next != NO_EDGE) {
+                return next;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = failure[state];
+        }
+    }
+
+    private static int edge(char[] labels, int[] targets, char c) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i] == c) {
+                return targets[i];
+            }
+        }
+        return NO_EDGE;
+    }
+
+    private static char[] append(char[] array, char value) {
+        char[] grown = Arrays.copyOf(array, array.length + 1);
+        grown[array.length] = value;
+        return grown;
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] grown = Arrays.copyOf(array, array.length + 1);
+        grown[array.length] = value;
+        return grown;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    /**
+     * Flat list of (key, key start, value start, value end).
+     */
+    private static final class Candidates {
+
+        private int[] data = new int[16];
+        private int size;
+
+        void add(int key, int keyStart, int valueStart, int valueEnd) {
+            if ((size + 1) * 4 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            int at = size++ * 4;
+            data[at] = key;
+            data[at + 1] = keyStart;
+            data[at + 2] = valueStart;
+            data[at + 3] = valueEnd;
+        }
+    }
+}
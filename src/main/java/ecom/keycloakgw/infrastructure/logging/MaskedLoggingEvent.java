@@ -0,0 +1,221 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
+import org.slf4j.Marker;
+import org.slf4j.event.KeyValuePair;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An event whose formatted message and exception messages have been masked, so that the
+ * appenders it is handed to render it without masking again. Everything else is read
+ * from the original event.
+ */
+public final class MaskedLoggingEvent implements ILoggingEvent {
+
+    private final ILoggingEvent event;
+    private final String message;
+    private final IThrowableProxy throwable;
+
+    private MaskedLoggingEvent(ILoggingEvent event, String message, IThrowableProxy throwable) {
+        this.event = event;
+        this.message = message;
+        this.throwable = throwable;
+    }
+
+    /**
+     * @return {@code event} itself when nothing had to be masked
+     */
+    public static ILoggingEvent of(LogMasker masker, ILoggingEvent event) {
+        String formatted = event.getFormattedMessage();
+        String message = masker.mask(formatted);
+        IThrowableProxy throwable = MaskedThrowableProxy.of(masker, event.getThrowableProxy());
+        if (message == formatted && throwable == event.getThrowableProxy()) {
+            return event;
+        }
+        return new MaskedLoggingEvent(event, message, throwable);
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public Object[] getArgumentArray() {
+        return null;
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        return message;
+    }
+
+    @Override
+    public IThrowableProxy getThrowableProxy() {
+        return throwable;
+    }
+
+    @Override
+    public String getThreadName() {
+        return event.getThreadName();
+    }
+
+    @Override
+    public Level getLevel() {
+        return event.getLevel();
+    }
+
+    @Override
+    public String getLoggerName() {
+        return event.getLoggerName();
+    }
+
+    @Override
+    public LoggerContextVO getLoggerContextVO() {
+        return event.getLoggerContextVO();
+    }
+
+    @Override
+    public StackTraceElement[] getCallerData() {
+        return event.getCallerData();
+    }
+
+    @Override
+    public boolean hasCallerData() {
+        return event.hasCallerData();
+    }
+
+    @Override
+    public List<Marker> getMarkerList() {
+        return event.getMarkerList();
+    }
+
+    @Override
+    public Map<String, String> getMDCPropertyMap() {
+        return event.getMDCPropertyMap();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public Map<String, String> getMdc() {
+        return event.getMdc();
+    }
+
+    @Override
+    public long getTimeStamp() {
+        return event.getTimeStamp();
+    }
+
+    @Override
+    public int getNanoseconds() {
+        return event.getNanoseconds();
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return event.getSequenceNumber();
+    }
+
+    @Override
+    public List<KeyValuePair> getKeyValuePairs() {
+        return event.getKeyValuePairs();
+    }
+
+    @Override
+    public void prepareForDeferredProcessing() {
+        event.prepareForDeferredProcessing();
+    }
+
+    /** The exception chain with every message masked; stack frames are kept as they are. */
+    private static final class MaskedThrowableProxy implements IThrowableProxy {
+
+        private final IThrowableProxy proxy;
+        private final String message;
+        private final String overridingMessage;
+        private final IThrowableProxy cause;
+        private final IThrowableProxy[] suppressed;
+
+        private MaskedThrowableProxy(IThrowableProxy proxy, String message, String overridingMessage,
+                                     IThrowableProxy cause, IThrowableProxy[] suppressed) {
+            this.proxy = proxy;
+            this.message = message;
+            this.overridingMessage = overridingMessage;
+            this.cause = cause;
+            this.suppressed = suppressed;
+        }
+
+        static IThrowableProxy of(LogMasker masker, IThrowableProxy proxy) {
+            if (proxy == null) {
+                return proxy;
+            }
+            String message = masker.mask(proxy.getMessage());
+            // A toString() that is not "class: message" is rendered in place of the message
+            String overridingMessage = masker.mask(proxy.getOverridingMessage());
+            IThrowableProxy cause = of(masker, proxy.getCause());
+            IThrowableProxy[] suppressed = proxy.getSuppressed();
+            IThrowableProxy[] maskedSuppressed = suppressed;
+            for (int i = 0; suppressed != null && i < suppressed.length; i++) {
+                IThrowableProxy masked = of(masker, suppressed[i]);
+                if (masked != suppressed[i]) {
+                    if (maskedSuppressed == suppressed) {
+                        // ThrowableProxy hands out a ThrowableProxy[], which cannot hold the masked copy
+                        maskedSuppressed = Arrays.copyOf(suppressed, suppressed.length, IThrowableProxy[].class);
+                    }
+                    maskedSuppressed[i] = masked;
+                }
+            }
+            if (message == proxy.getMessage() && overridingMessage == proxy.getOverridingMessage()
+                    && cause == proxy.getCause() && maskedSuppressed == suppressed) {
+                return proxy;
+            }
+            return new MaskedThrowableProxy(proxy, message, overridingMessage, cause, maskedSuppressed);
+        }
+
+        @Override
+        public String getOverridingMessage() {
+            return overridingMessage;
+        }
+
+        @Override
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String getClassName() {
+            return proxy.getClassName();
+        }
+
+        @Override
+        public StackTraceElementProxy[] getStackTraceElementProxyArray() {
+            return proxy.getStackTraceElementProxyArray();
+        }
+
+        @Override
+        public int getCommonFrames() {
+            return proxy.getCommonFrames();
+        }
+
+        @Override
+        public IThrowableProxy getCause() {
+            return cause;
+        }
+
+        @Override
+        public IThrowableProxy[] getSuppressed() {
+            return suppressed;
+        }
+
+        @Override
+        public boolean isCyclic() {
+            return proxy.isCyclic();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ecom.keycloakgw.infrastructure.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import ecom.keycloakgw.infrastructure.cache.IntrospectionResultCache;
+import ecom.keycloakgw.infrastructure.ratelimit.RateLimiter;
+import ecom.keycloakgw.infrastructure.resilience.CircuitBreaker;
+import ecom.keycloakgw.infrastructure.resilience.EKeycloakOperation;
+import ecom.keycloakgw.infrastructure.resilience.KeycloakResilience;
+import ecom.keycloakgw.infrastructure.resilience.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the counters kept by the gateway's own caches and resilience components.
+ */
+@Component
+public class GatewayMeterBinder implements MeterBinder {
+
+    private final IntrospectionResultCache introspectionResultCache;
+    private final SingleFlight singleFlight;
+    private final KeycloakResilience resilience;
+    private final RateLimiter rateLimiter;
+
+    public GatewayMeterBinder(IntrospectionResultCache introspectionResultCache, SingleFlight singleFlight,
+                              KeycloakResilience resilience, RateLimiter rateLimiter) {
+        this.introspectionResultCache = introspectionResultCache;
+        this.singleFlight = singleFlight;
+        this.resilience = resilience;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        IntrospectionResultCache cache = introspectionResultCache;
+        FunctionCounter.builder("gateway.introspection.cache.requests", cache, c -> c.stats().hitCount())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("gateway.introspection.cache.requests", cache, c -> c.stats().missCount())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("gateway.introspection.cache.evictions", cache, c -> c.stats().evictionCount())
+                .register(registry);
+        Gauge.builder("gateway.introspection.cache.size", cache, IntrospectionResultCache::size)
+                .register(registry);
+        Gauge.builder("gateway.introspection.cache.hit.ratio", cache, c -> hitRatio(c.stats()))
+                .register(registry);
+
+        FunctionCounter.builder("gateway.singleflight.calls", singleFlight, SingleFlight::upstreamCalls)
+                .tag("result", "upstream")
+                .register(registry);
+        FunctionCounter.builder("gateway.singleflight.calls", singleFlight, SingleFlight::coalescedCalls)
+                .tag("result", "coalesced")
+                .register(registry);
+        Gauge.builder("gateway.singleflight.in.flight", singleFlight, SingleFlight::inFlight)
+                .register(registry);
+
+        for (EKeycloakOperation.Group group : EKeycloakOperation.Group.values()) {
+            CircuitBreaker circuitBreaker = resilience.circuitBreaker(group);
+            for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+                Gauge.builder("keycloak.circuit.breaker.state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                        .tag("group", group.name())
+                        .tag("state", state.name())
+                        .register(registry);
+            }
+            Gauge.builder("keycloak.bulkhead.in.flight", resilience.bulkhead(group), b -> b.getInFlight())
+                    .tag("group", group.name())
+                    .register(registry);
+        }
+
+        Gauge.builder("gateway.rate.limit.buckets", rateLimiter, RateLimiter::size)
+                .register(registry);
+    }
+
+    private static double hitRatio(CacheStats stats) {
+        return stats.requestCount() == 0 ? 0 : stats.hitRate();
+    }
+}
@@ -0,0 +1,104 @@
+package ecom.keycloakgw.infrastructure.metrics;
+
+import ecom.keycloakgw.infrastructure.resilience.EKeycloakOperation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.handler.timeout.WriteTimeoutException;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Times every Keycloak exchange as {@code keycloak.client.requests}, tagged with the
+ * operation (from the {@link EKeycloakOperation#ATTRIBUTE} request attribute), its group,
+ * the outcome and the HTTP status. All tag values come from enums or status codes, never
+ * from URIs, so cardinality stays bounded. Histogram and SLO buckets are configured under
+ * {@code management.metrics.distribution}.
+ */
+@Component
+public class KeycloakClientMetrics implements ExchangeFilterFunction {
+
+    public static final String METRIC_NAME = "keycloak.client.requests";
+    private static final String NO_STATUS = "NONE";
+
+    private final MeterRegistry registry;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public KeycloakClientMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String operation = request.attribute(EKeycloakOperation.ATTRIBUTE)
+                .map(value -> ((EKeycloakOperation) value).name())
+                .orElse("UNKNOWN");
+        String group = request.attribute(EKeycloakOperation.ATTRIBUTE)
+                .map(value -> ((EKeycloakOperation) value).getGroup().name())
+                .orElse("UNKNOWN");
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                    .doOnSuccess(response -> {
+                        if (response != null) {
+                            record(operation, group, outcome(response.statusCode()),
+                                    Integer.toString(response.statusCode().value()), start);
+                        }
+                    })
+                    .doOnError(ex -> record(operation, group, isTimeout(ex) ? "TIMEOUT" : "IO_ERROR", NO_STATUS, start))
+                    .doOnCancel(() -> record(operation, group, "CANCELLED", NO_STATUS, start));
+        });
+    }
+
+    private void record(String operation, String group, String outcome, String status, long startNanos) {
+        timers.computeIfAbsent(new TimerKey(operation, group, outcome, status), key -> Timer.builder(METRIC_NAME)
+                        .description("Keycloak exchanges, measured to response headers")
+                        .tag("operation", key.operation())
+                        .tag("group", key.group())
+                        .tag("outcome", key.outcome())
+                        .tag("status", key.status())
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(HttpStatusCode status) {
+        if (status.is2xxSuccessful()) {
+            return "SUCCESS";
+        }
+        if (status.is3xxRedirection()) {
+            return "REDIRECTION";
+        }
+        if (status.is4xxClientError()) {
+            return "CLIENT_ERROR";
+        }
+        if (status.is5xxServerError()) {
+            return "SERVER_ERROR";
+        }
+        return "UNKNOWN";
+    }
+
+    private static boolean isTimeout(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException
+                    || cause instanceof ReadTimeoutException
+                    || cause instanceof WriteTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record TimerKey(String operation, String group, String outcome, String status) {
+    }
+}
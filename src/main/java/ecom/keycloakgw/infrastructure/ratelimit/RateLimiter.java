@@ -0,0 +1,41 @@
+package ecom.keycloakgw.infrastructure.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ecom.keycloakgw.infrastructure.config.GatewayProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token buckets keyed by route and client identity. The table is a Caffeine cache, so
+ * lookups are lock-free, writes are striped, and buckets for clients that stop sending
+ * expire on their own.
+ */
+@Component
+public class RateLimiter {
+
+    private final Cache<BucketKey, TokenBucket> buckets;
+
+    public RateLimiter(GatewayProperties properties) {
+        GatewayProperties.RateLimit config = properties.getRateLimit();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumBuckets())
+                .expireAfterAccess(config.getIdleExpiry())
+                .build();
+    }
+
+    /**
+     * @return 0 when the request may proceed, otherwise the nanoseconds until it may
+     */
+    public long tryAcquire(String route, String dimension, String client, GatewayProperties.Limit limit) {
+        TokenBucket bucket = buckets.get(new BucketKey(route, dimension, client),
+                key -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond()));
+        return bucket.tryConsume(System.nanoTime());
+    }
+
+    public long size() {
+        return buckets.estimatedSize();
+    }
+
+    private record BucketKey(String route, String dimension, String client) {
+    }
+}
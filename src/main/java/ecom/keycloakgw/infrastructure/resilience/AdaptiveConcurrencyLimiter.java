@@ -0,0 +1,224 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ecom.keycloakgw.domain.exception.BusinessException;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.log.utils.LoggerUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient-style adaptive limit on concurrent Keycloak exchanges. The limit grows while
+ * the short-term RTT stays close to the long-term average and shrinks as it rises above
+ * it (Keycloak is queueing), or multiplicatively on 429/503/504, timeouts and connection
+ * errors. Requests over the limit wait briefly for a permit and are then rejected with
+ * {@link ErrorCode#KEYCLOAK_BUSY}. The connection pool size remains the hard ceiling.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter implements ExchangeFilterFunction, MeterBinder {
+
+    private final KeycloakProperties.ConcurrencyLimit config;
+    private final int maxLimit;
+    private final double longRttAlpha;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double limit;
+    private volatile double shortRttNanos;
+    private volatile double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(KeycloakProperties properties) {
+        this.config = properties.getConcurrencyLimit();
+        // More permits than pooled connections would only queue in the pool instead
+        this.maxLimit = Math.max(config.getMinLimit(),
+                Math.min(config.getMaxLimit(), properties.getHttp().getMaxConnections()));
+        this.longRttAlpha = 2.0 / (config.getLongWindow() + 1);
+        updateLimit(config.getInitialLimit());
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!config.isEnabled()) {
+            return next.exchange(request);
+        }
+        return acquire().flatMap(permit -> {
+            long start = System.nanoTime();
+            int inFlightAtStart = inFlight.get();
+            return next.exchange(request)
+                    .doOnSuccess(response -> {
+                        if (response != null && isOverload(response.statusCode().value())) {
+                            permit.release(this::onDrop);
+                        } else {
+                            permit.release(() -> onSample(System.nanoTime() - start, inFlightAtStart));
+                        }
+                    })
+                    .doOnError(ex -> permit.release(
+                            KeycloakResilience.isUpstreamFailure(ex) ? this::onDrop : () -> { }))
+                    .doOnCancel(() -> permit.release(() -> { }));
+        });
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("keycloak.client.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on concurrent Keycloak exchanges")
+                .register(registry);
+        Gauge.builder("keycloak.client.concurrency.in.flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(registry);
+        Gauge.builder("keycloak.client.concurrency.queued", queued, AtomicInteger::get)
+                .register(registry);
+        Gauge.builder("keycloak.client.rtt.short", this, limiter -> limiter.shortRttNanos / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("keycloak.client.rtt.long", this, limiter -> limiter.longRttNanos / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("keycloak.client.concurrency.rejected", rejected, LongAdder::sum)
+                .register(registry);
+    }
+
+    private Mono<Permit> acquire() {
+        if (tryAcquire()) {
+            return Mono.just(new Permit());
+        }
+        if (queued.get() >= config.getMaxQueued()) {
+            return reject();
+        }
+        return Mono.<Permit>create(sink -> {
+                    Waiter waiter = new Waiter(sink);
+                    queued.incrementAndGet();
+                    waiters.add(waiter);
+                    sink.onCancel(waiter::cancel);
+                    drain();
+                })
+                .timeout(config.getMaxQueueWait(), Mono.defer(this::reject));
+    }
+
+    private Mono<Permit> reject() {
+        rejected.increment();
+        LoggerUtils.warn(AdaptiveConcurrencyLimiter.class, "Keycloak concurrency limit {} reached, rejecting request", getLimit());
+        return Mono.error(new BusinessException(ErrorCode.KEYCLOAK_BUSY));
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void drain() {
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null && tryAcquire()) {
+            if (waiters.remove(waiter)) {
+                queued.decrementAndGet();
+                if (waiter.grant(new Permit())) {
+                    continue;
+                }
+            }
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        shortRttNanos = rttNanos;
+        longRttNanos = longRttNanos == 0 ? rttNanos : longRttNanos + longRttAlpha * (rttNanos - longRttNanos);
+
+        // An application-limited client says nothing about Keycloak's capacity
+        if (inFlightAtStart * 2 < limit) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, config.getRttTolerance() * longRttNanos / rttNanos));
+        double candidate = limit * gradient + Math.sqrt(limit);
+        updateLimit(limit * (1 - config.getSmoothing()) + candidate * config.getSmoothing());
+    }
+
+    private synchronized void onDrop() {
+        updateLimit(limit * config.getBackoffRatio());
+    }
+
+    private void updateLimit(double candidate) {
+        limit = Math.max(config.getMinLimit(), Math.min(maxLimit, candidate));
+    }
+
+    private static boolean isOverload(int status) {
+        return status == HttpStatus.TOO_MANY_REQUESTS.value()
+                || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status == HttpStatus.GATEWAY_TIMEOUT.value();
+    }
+
+    private final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release(Runnable outcome) {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                outcome.run();
+                drain();
+            }
+        }
+    }
+
+    private final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private volatile Permit granted;
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        boolean grant(Permit permit) {
+            granted = permit;
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            sink.success(permit);
+            return true;
+        }
+
+        void cancel() {
+            if (settled.compareAndSet(false, true)) {
+                if (waiters.remove(this)) {
+                    queued.decrementAndGet();
+                }
+            } else if (granted != null) {
+                granted.release(() -> { });
+            }
+        }
+    }
+}
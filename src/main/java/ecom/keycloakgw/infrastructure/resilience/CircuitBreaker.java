@@ -0,0 +1,152 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+
+/**
+ * Count-based sliding-window circuit breaker. Opens when the failure rate or the
+ * slow-call rate over the last {@code slidingWindowSize} calls crosses its threshold,
+ * stays open for {@code waitDurationInOpenState}, then lets a fixed number of probes
+ * through in half-open state to decide whether to close again. Permission checks never
+ * block; the state transitions are guarded by a short monitor.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte OK = 0;
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final KeycloakProperties.Resilience.Policy config;
+    private final byte[] window;
+    private final long slowCallNanos;
+    private final long waitInOpenNanos;
+
+    private volatile State state = State.CLOSED;
+    private int windowIndex;
+    private int windowCount;
+    private int failedInWindow;
+    private int slowInWindow;
+    private long openedAtNanos;
+    private int probesIssued;
+    private int probesRecorded;
+    private int probesFailed;
+
+    public CircuitBreaker(String name, KeycloakProperties.Resilience.Policy config) {
+        this.name = name;
+        this.config = config;
+        this.window = new byte[config.getSlidingWindowSize()];
+        this.slowCallNanos = config.getSlowCallDuration().toNanos();
+        this.waitInOpenNanos = config.getWaitDurationInOpenState().toNanos();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAtNanos < waitInOpenNanos) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesIssued >= config.getPermittedCallsInHalfOpenState()) {
+                    return false;
+                }
+                probesIssued++;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Gives back a permission whose call ended without an outcome (cancelled).
+     */
+    public void releasePermission() {
+        if (state != State.HALF_OPEN) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.HALF_OPEN && probesIssued > probesRecorded) {
+                probesIssued--;
+            }
+        }
+    }
+
+    public void onResult(boolean failed, long durationNanos) {
+        byte outcome = (byte) ((failed ? FAILED : OK) | (durationNanos >= slowCallNanos ? SLOW : OK));
+        synchronized (this) {
+            switch (state) {
+                case CLOSED -> recordClosed(outcome);
+                case HALF_OPEN -> recordHalfOpen(outcome);
+                case OPEN -> {
+                    // late result of a call admitted before the circuit opened
+                }
+            }
+        }
+    }
+
+    private void recordClosed(byte outcome) {
+        if (windowCount == window.length) {
+            byte evicted = window[windowIndex];
+            if ((evicted & FAILED) != 0) failedInWindow--;
+            if ((evicted & SLOW) != 0) slowInWindow--;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % window.length;
+        if ((outcome & FAILED) != 0) failedInWindow++;
+        if ((outcome & SLOW) != 0) slowInWindow++;
+
+        if (windowCount >= config.getMinimumNumberOfCalls()
+                && (rate(failedInWindow, windowCount) >= config.getFailureRateThreshold()
+                || rate(slowInWindow, windowCount) >= config.getSlowCallRateThreshold())) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void recordHalfOpen(byte outcome) {
+        probesRecorded++;
+        if (outcome != OK) {
+            probesFailed++;
+        }
+        if (probesRecorded >= config.getPermittedCallsInHalfOpenState()) {
+            transitionTo(rate(probesFailed, probesRecorded) >= config.getFailureRateThreshold()
+                    ? State.OPEN : State.CLOSED);
+        }
+    }
+
+    private void transitionTo(State next) {
+        state = next;
+        probesIssued = 0;
+        probesRecorded = 0;
+        probesFailed = 0;
+        if (next == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        if (next == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            failedInWindow = 0;
+            slowInWindow = 0;
+        }
+    }
+
+    private static float rate(int count, int total) {
+        return total == 0 ? 0 : count * 100f / total;
+    }
+}
@@ -0,0 +1,36 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import lombok.Getter;
+
+@Getter
+public enum EKeycloakOperation {
+    ADMIN_LOGIN(Group.LOGIN, false),
+    CLIENT_CREDENTIALS(Group.LOGIN, false),
+    USER_LOGIN(Group.LOGIN, false),
+    LOGOUT(Group.LOGIN, false),
+    INTROSPECT(Group.INTROSPECT, true),
+    JWKS(Group.INTROSPECT, true),
+    GET_USER_BY_USERNAME(Group.ADMIN_READ, true),
+    GET_USER_BY_ID(Group.ADMIN_READ, true),
+    GET_REALM_ROLE(Group.ADMIN_READ, true),
+    LIST_USERS(Group.ADMIN_READ, true),
+    CREATE_USER(Group.ADMIN_WRITE, false),
+    ASSIGN_REALM_ROLE(Group.ADMIN_WRITE, false),
+    UPDATE_USER(Group.ADMIN_WRITE, false),
+    RESET_PASSWORD(Group.ADMIN_WRITE, false);
+
+    /** WebClient request attribute carrying the operation, read by exchange filters. */
+    public static final String ATTRIBUTE = EKeycloakOperation.class.getName();
+
+    private final Group group;
+    private final boolean idempotent;
+
+    EKeycloakOperation(Group group, boolean idempotent) {
+        this.group = group;
+        this.idempotent = idempotent;
+    }
+
+    public enum Group {
+        LOGIN, INTROSPECT, ADMIN_READ, ADMIN_WRITE
+    }
+}
@@ -0,0 +1,81 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ecom.keycloakgw.domain.exception.BusinessException;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * One circuit breaker and one bulkhead per operation group, so a slow group (for example
+ * admin writes) cannot starve the others. Only upstream failures count against the
+ * breaker: 5xx responses, connection errors and timeouts. 4xx responses are the
+ * caller's problem, not Keycloak's.
+ */
+@Component
+public class KeycloakResilience {
+
+    private final Map<EKeycloakOperation.Group, CircuitBreaker> circuitBreakers = new EnumMap<>(EKeycloakOperation.Group.class);
+    private final Map<EKeycloakOperation.Group, Bulkhead> bulkheads = new EnumMap<>(EKeycloakOperation.Group.class);
+
+    public KeycloakResilience(KeycloakProperties properties) {
+        for (EKeycloakOperation.Group group : EKeycloakOperation.Group.values()) {
+            KeycloakProperties.Resilience.Policy policy = properties.getResilience().policyFor(group);
+            circuitBreakers.put(group, new CircuitBreaker(group.name(), policy));
+            bulkheads.put(group, new Bulkhead(policy.getMaxConcurrentCalls()));
+        }
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> guard(EKeycloakOperation operation) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(operation.getGroup());
+        Bulkhead bulkhead = bulkheads.get(operation.getGroup());
+
+        // Retries resubscribe from a timer thread, so the rejection logs take the MDC from the context
+        return source -> Mono.deferContextual(ctx -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                ContextMdc.run(ctx, () -> LoggerUtils.warn(KeycloakResilience.class,
+                        "Circuit {} is open, rejecting {}", circuitBreaker.getName(), operation));
+                return Mono.error(new BusinessException(ErrorCode.KEYCLOAK_UNAVAILABLE));
+            }
+            if (!bulkhead.tryAcquire()) {
+                circuitBreaker.releasePermission();
+                ContextMdc.run(ctx, () -> LoggerUtils.warn(KeycloakResilience.class,
+                        "Bulkhead {} is full, rejecting {}", operation.getGroup(), operation));
+                return Mono.error(new BusinessException(ErrorCode.KEYCLOAK_BUSY));
+            }
+
+            long start = System.nanoTime();
+            return source
+                    .doOnSuccess(value -> circuitBreaker.onResult(false, System.nanoTime() - start))
+                    .doOnError(ex -> circuitBreaker.onResult(isUpstreamFailure(ex), System.nanoTime() - start))
+                    .doOnCancel(circuitBreaker::releasePermission)
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    public CircuitBreaker circuitBreaker(EKeycloakOperation.Group group) {
+        return circuitBreakers.get(group);
+    }
+
+    public Bulkhead bulkhead(EKeycloakOperation.Group group) {
+        return bulkheads.get(group);
+    }
+
+    public static boolean isUpstreamFailure(Throwable ex) {
+        if (ex instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        return ex instanceof WebClientRequestException
+                || ex instanceof TimeoutException
+                || ex.getCause() instanceof TimeoutException;
+    }
+}
@@ -0,0 +1,145 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Retry and hedging for idempotent reads. Retries use decorrelated-jitter backoff and
+ * only fire on upstream failures (5xx, connection errors, timeouts). A hedge is a second
+ * attempt started once the first has been outstanding longer than the operation's
+ * recent p95; whichever answers first wins, and a failure only counts once the other
+ * attempt has failed too (the primary's error is reported). Both draw from
+ * one shared {@link RetryBudget}.
+ */
+@Component
+public class KeycloakRetryPolicy {
+
+    private final KeycloakProperties.Retry config;
+    private final RetryBudget budget;
+    private final Map<EKeycloakOperation, LatencyTracker> latencies = new EnumMap<>(EKeycloakOperation.class);
+
+    public KeycloakRetryPolicy(KeycloakProperties properties) {
+        this.config = properties.getRetry();
+        this.budget = new RetryBudget(config.getBudgetRatio(), config.getBudgetMinPerSecond());
+        for (EKeycloakOperation operation : EKeycloakOperation.values()) {
+            if (operation.isIdempotent()) {
+                latencies.put(operation, new LatencyTracker(config.getHedging().getPercentile()));
+            }
+        }
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> idempotent(EKeycloakOperation operation) {
+        if (!operation.isIdempotent()) {
+            throw new IllegalArgumentException(operation + " is not idempotent and must not be retried");
+        }
+        if (!config.isEnabled()) {
+            return Function.identity();
+        }
+        LatencyTracker latency = latencies.get(operation);
+
+        return source -> Mono.defer(() -> {
+            budget.onRequest();
+            AtomicLong previousDelayMillis = new AtomicLong(config.getBaseDelay().toMillis());
+            Mono<T> attempt = timed(source, latency);
+
+            return hedged(operation, attempt, latency)
+                    // retryContextView() is the retry spec's own context, not the caller's,
+                    // so the log keys come from the subscriber of the companion flux
+                    .retryWhen(Retry.from(signals -> Flux.deferContextual(ctx -> signals.concatMap(signal -> {
+                        Throwable failure = signal.failure();
+                        if (signal.totalRetries() >= config.getMaxRetries()
+                                || !KeycloakResilience.isUpstreamFailure(failure)
+                                || !budget.tryAcquire()) {
+                            return Mono.error(failure);
+                        }
+                        long delay = nextDelayMillis(previousDelayMillis.get());
+                        previousDelayMillis.set(delay);
+                        ContextMdc.run(ctx, () -> LoggerUtils.warn(KeycloakRetryPolicy.class,
+                                "Retrying {} in {}ms after: {}", operation, delay, failure.getMessage()));
+                        return Mono.delay(Duration.ofMillis(delay));
+                    }))));
+        });
+    }
+
+    private <T> Mono<T> hedged(EKeycloakOperation operation, Mono<T> attempt, LatencyTracker latency) {
+        KeycloakProperties.Retry.Hedging hedging = config.getHedging();
+        return Mono.defer(() -> {
+            long p = latency.percentileNanos();
+            if (!hedging.isEnabled() || p < 0 || latency.count() < hedging.getMinSamples()) {
+                return attempt;
+            }
+            long delayNanos = Math.max(hedging.getMinDelay().toNanos(), p);
+            HedgeState state = new HedgeState();
+            Mono<T> primary = attempt.onErrorResume(ex -> state.failed(ex, true));
+            Mono<T> hedge = Mono.delay(Duration.ofNanos(delayNanos))
+                    .flatMap(tick -> Mono.deferContextual(ctx -> {
+                        if (!budget.tryAcquire() || !state.startHedge()) {
+                            return Mono.<T>never();
+                        }
+                        ContextMdc.run(ctx, () -> LoggerUtils.info(KeycloakRetryPolicy.class, "Hedging {} after {}ms",
+                                operation, TimeUnit.NANOSECONDS.toMillis(delayNanos)));
+                        return attempt.onErrorResume(ex -> state.failed(ex, false));
+                    }));
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    /**
+     * Lets a failed attempt through only once no other attempt can still answer, and then
+     * reports the primary's error. A failure while the other attempt is in flight turns
+     * into {@code never}, so {@code firstWithSignal} keeps waiting for that attempt.
+     */
+    private static final class HedgeState {
+
+        private int pending = 1;
+        private Throwable primaryFailure;
+
+        synchronized boolean startHedge() {
+            if (pending == 0) {
+                return false;
+            }
+            pending++;
+            return true;
+        }
+
+        <T> Mono<T> failed(Throwable failure, boolean primary) {
+            Throwable surfaced;
+            synchronized (this) {
+                if (primary) {
+                    primaryFailure = failure;
+                }
+                if (--pending > 0) {
+                    return Mono.never();
+                }
+                surfaced = primaryFailure != null ? primaryFailure : failure;
+            }
+            return Mono.error(surfaced);
+        }
+    }
+
+    private static <T> Mono<T> timed(Mono<T> source, LatencyTracker latency) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return source.doOnSuccess(value -> latency.record(System.nanoTime() - start));
+        });
+    }
+
+    private long nextDelayMillis(long previous) {
+        long base = config.getBaseDelay().toMillis();
+        long upper = Math.max(base + 1, previous * 3);
+        return Math.min(config.getMaxDelay().toMillis(), ThreadLocalRandom.current().nextLong(base, upper));
+    }
+}
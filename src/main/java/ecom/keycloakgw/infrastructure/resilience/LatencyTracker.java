@@ -0,0 +1,52 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rolling latency percentile over the most recent samples. The percentile is recomputed
+ * every {@code RECOMPUTE_EVERY} samples rather than on read, so reads are a volatile load.
+ */
+public class LatencyTracker {
+
+    private static final int SAMPLES = 256;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final double percentile;
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long percentileNanos = -1;
+
+    public LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public void record(long nanos) {
+        long count = recorded.getAndIncrement();
+        samples.set((int) (count % SAMPLES), nanos);
+        if ((count + 1) % RECOMPUTE_EVERY == 0) {
+            recompute(Math.min(count + 1, SAMPLES));
+        }
+    }
+
+    public long count() {
+        return recorded.get();
+    }
+
+    /**
+     * @return the tracked percentile in nanoseconds, or -1 until enough samples exist
+     */
+    public long percentileNanos() {
+        return percentileNanos;
+    }
+
+    private void recompute(long size) {
+        long[] copy = new long[(int) size];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        percentileNanos = copy[(int) Math.min(copy.length - 1, Math.ceil(percentile * copy.length) - 1)];
+    }
+}
@@ -0,0 +1,50 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries (and hedges) to a fraction of first attempts, plus a small per-second
+ * floor so low-traffic periods can still retry. When Keycloak is down every request
+ * fails, and without a budget each one would turn into several.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1_000;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final int minPerSecond;
+    private final AtomicLong balance = new AtomicLong();
+    private final AtomicLong windowStartMillis = new AtomicLong();
+    private final AtomicLong usedInWindow = new AtomicLong();
+
+    public RetryBudget(double ratio, int minPerSecond) {
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.maxBalance = Math.max(SCALE, depositPerRequest * 1_000);
+        this.minPerSecond = minPerSecond;
+    }
+
+    public void onRequest() {
+        balance.accumulateAndGet(depositPerRequest, (current, deposit) -> Math.min(maxBalance, current + deposit));
+    }
+
+    public boolean tryAcquire() {
+        long now = System.currentTimeMillis();
+        long windowStart = windowStartMillis.get();
+        if (now - windowStart >= 1_000 && windowStartMillis.compareAndSet(windowStart, now)) {
+            usedInWindow.set(0);
+        }
+        if (usedInWindow.incrementAndGet() <= minPerSecond) {
+            return true;
+        }
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
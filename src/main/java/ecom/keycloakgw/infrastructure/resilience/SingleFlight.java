@@ -0,0 +1,77 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: callers with an equal key subscribe to one
+ * shared upstream call. The upstream is cancelled only once every caller has cancelled,
+ * and the key is released as soon as the call terminates, so a caller arriving after
+ * that starts a new call. A caller that found the key just before it was released still
+ * gets the result of the call it joined rather than starting a second one.
+ * <p>
+ * The shared call runs in the context of the caller that started it, so Keycloak and
+ * the client logs only see that caller's request id and trace. Every caller that joins
+ * logs the leading request id under its own, which links the two.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentHashMap<Object, Flight<?>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder upstreamCalls = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(Object key, Supplier<Mono<T>> call) {
+        return Mono.deferContextual(ctx -> {
+            Flight<T> existing = (Flight<T>) inFlight.get(key);
+            if (existing != null) {
+                return join(key, existing, ctx);
+            }
+
+            AtomicReference<Flight<T>> self = new AtomicReference<>();
+            Mono<T> shared = Mono.defer(call)
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .share();
+            self.set(new Flight<>(shared, ctx.getOrDefault(RequestIdWebFilter.REQUEST_ID_KEY, null)));
+
+            Flight<T> raced = (Flight<T>) inFlight.putIfAbsent(key, self.get());
+            if (raced != null) {
+                return join(key, raced, ctx);
+            }
+            upstreamCalls.increment();
+            return shared;
+        });
+    }
+
+    private <T> Mono<T> join(Object key, Flight<T> flight, ContextView ctx) {
+        coalescedCalls.increment();
+        ContextMdc.run(ctx, () -> LoggerUtils.info(SingleFlight.class,
+                "Joined in-flight {} started by requestId={}", key, flight.leaderRequestId()));
+        return flight.result();
+    }
+
+    public long upstreamCalls() {
+        return upstreamCalls.sum();
+    }
+
+    public long coalescedCalls() {
+        return coalescedCalls.sum();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private record Flight<T>(Mono<T> result, String leaderRequestId) {
+    }
+}
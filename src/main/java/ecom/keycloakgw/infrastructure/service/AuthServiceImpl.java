@@ -6,13 +6,14 @@ import ecom.keycloakgw.application.service.AuthService;
 import ecom.keycloakgw.domain.exception.BusinessException;
 import ecom.keycloakgw.domain.exception.ErrorCode;
 import ecom.keycloakgw.infrastructure.client.KeycloakAuthClient;
-import ecom.log.annotation.UseAspect;
+import ecom.keycloakgw.infrastructure.logging.LogInvocations;
 import ecom.log.utils.LoggerUtils;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 @Service
-@UseAspect
+@LogInvocations
 public class AuthServiceImpl implements AuthService {
 
     private final KeycloakAuthClient keycloakAuthClient;
@@ -23,6 +24,17 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public Mono<TokenResponse> adminLogin(AdminLoginRequest request) {
+        return validate(request)
+                .then(Mono.defer(() -> keycloakAuthClient.adminLogin(request.getUsername(), request.getPassword())));
+    }
+
+    @Override
+    public Mono<DataBuffer> adminLoginBody(AdminLoginRequest request) {
+        return validate(request)
+                .then(Mono.defer(() -> keycloakAuthClient.adminLoginBody(request.getUsername(), request.getPassword())));
+    }
+
+    private Mono<Void> validate(AdminLoginRequest request) {
         LoggerUtils.info(AuthServiceImpl.class, "Processing admin login for username={}", request.getUsername());
 
         if (request.getUsername() == null || request.getUsername().isBlank()) {
@@ -31,7 +43,6 @@ public class AuthServiceImpl implements AuthService {
         if (request.getPassword() == null || request.getPassword().isBlank()) {
             return Mono.error(new BusinessException(ErrorCode.INVALID_REQUEST, "Password is required"));
         }
-
-        return keycloakAuthClient.adminLogin(request.getUsername(), request.getPassword());
+        return Mono.empty();
     }
 }
@@ -3,6 +3,7 @@ package ecom.keycloakgw.infrastructure.service;
 import ecom.keycloakgw.application.dto.request.*;
 import ecom.keycloakgw.application.dto.response.CreateUserResponse;
 import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.application.dto.response.RoleResponse;
 import ecom.keycloakgw.application.dto.response.TokenResponse;
 import ecom.keycloakgw.application.dto.response.UserResponse;
 import ecom.keycloakgw.application.service.UserService;
@@ -10,29 +11,48 @@ import ecom.keycloakgw.application.validator.Validator;
 import ecom.keycloakgw.domain.exception.BusinessException;
 import ecom.keycloakgw.domain.exception.ErrorCode;
 import ecom.keycloakgw.domain.utils.ERole;
+import ecom.keycloakgw.infrastructure.cache.RealmRoleRegistry;
 import ecom.keycloakgw.infrastructure.client.KeycloakUserClient;
-import ecom.log.annotation.UseAspect;
+import ecom.keycloakgw.infrastructure.config.GatewayProperties;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.keycloakgw.infrastructure.logging.LogInvocations;
+import ecom.keycloakgw.infrastructure.token.AdminTokenManager;
+import ecom.keycloakgw.infrastructure.token.TokenVerifier;
 import ecom.log.utils.LoggerUtils;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 
 @Service
-@UseAspect
+@LogInvocations
 public class UserServiceImpl implements UserService {
 
     private final KeycloakUserClient keycloakUserClient;
+    private final TokenVerifier tokenVerifier;
+    private final AdminTokenManager adminTokenManager;
+    private final RealmRoleRegistry realmRoleRegistry;
     private final Validator<CreateUserRequest> createUserValidator;
     private final Validator<UserLoginRequest> userLoginValidator;
     private final Validator<String> userIdValidator;
+    private final GatewayProperties.Export exportConfig;
+    private final GatewayProperties.BatchValidation batchConfig;
 
-    public UserServiceImpl(KeycloakUserClient keycloakUserClient, Validator<CreateUserRequest> createUserValidator, Validator<UserLoginRequest> userLoginValidator, Validator<String> userIdValidator) {
+    public UserServiceImpl(KeycloakUserClient keycloakUserClient, TokenVerifier tokenVerifier, AdminTokenManager adminTokenManager, RealmRoleRegistry realmRoleRegistry, Validator<CreateUserRequest> createUserValidator, Validator<UserLoginRequest> userLoginValidator, Validator<String> userIdValidator, GatewayProperties gatewayProperties) {
         this.keycloakUserClient = keycloakUserClient;
+        this.tokenVerifier = tokenVerifier;
+        this.adminTokenManager = adminTokenManager;
+        this.realmRoleRegistry = realmRoleRegistry;
         this.createUserValidator = createUserValidator;
         this.userLoginValidator = userLoginValidator;
         this.userIdValidator = userIdValidator;
+        this.exportConfig = gatewayProperties.getExport();
+        this.batchConfig = gatewayProperties.getBatchValidation();
     }
 
     @Override
@@ -48,76 +68,115 @@ public class UserServiceImpl implements UserService {
                     request.getRoleName().getRole() :
                     ERole.CUSTOMER.getRole();
 
-            String adminToken = extractToken(authorization);
-            return keycloakUserClient.createUser(
+            String callerToken = extractToken(authorization);
+            Mono<String> createdUserId = adminTokenManager.execute(callerToken, adminToken -> keycloakUserClient.createUser(
                             adminToken,
                             request.getUsername(),
                             request.getEmail(),
                             request.getFirstName(),
                             request.getLastName(),
                             request.getPassword()
-                    )
-                    .then(keycloakUserClient.getUserByUsername(adminToken, request.getUsername()))
-                    .flatMap(user -> {
-                        String userId = user.getId();
+                    ))
+                    .switchIfEmpty(ContextMdc.deferWithMdc(() -> {
                         LoggerUtils.info(UserServiceImpl.class,
-                                "User created, userId={}, getting role={}", userId, roleName);
-                        return keycloakUserClient.getRealmRole(adminToken, roleName)
-                                .flatMap(role -> {
-
-                                    LoggerUtils.info(UserServiceImpl.class,
-                                            "Role found: id={}, assigning to userId={}",
-                                            role.getId(), userId);
-
-                                    return keycloakUserClient.assignRealmRole(
-                                                    adminToken,
-                                                    userId,
-                                                    role.getId(),
-                                                    role.getName()
-                                            )
-                                            .thenReturn(
-                                                    CreateUserResponse.builder()
-                                                            .userId(userId)
-                                                            .username(request.getUsername())
-                                                            .roleName(roleName)
-                                                            .message("User registered and role assigned successfully")
-                                                            .build()
-                                            );
-                                });
-                    });
+                                "No Location header on create, looking up userId for username={}", request.getUsername());
+                        return adminTokenManager.execute(callerToken,
+                                        adminToken -> keycloakUserClient.getUserByUsername(adminToken, request.getUsername()))
+                                .map(UserResponse::getId);
+                    }));
+
+            return Mono.zipDelayError(createdUserId, realmRoleRegistry.getRole(callerToken, roleName))
+                    .flatMap(created -> ContextMdc.deferWithMdc(() -> {
+                        String userId = created.getT1();
+                        RoleResponse role = created.getT2();
+
+                        LoggerUtils.info(UserServiceImpl.class,
+                                "User created, userId={}, assigning role id={}", userId, role.getId());
+
+                        return adminTokenManager.execute(callerToken,
+                                        adminToken -> keycloakUserClient.assignRealmRole(
+                                                adminToken,
+                                                userId,
+                                                role.getId(),
+                                                role.getName()
+                                        ))
+                                .thenReturn(
+                                        CreateUserResponse.builder()
+                                                .userId(userId)
+                                                .username(request.getUsername())
+                                                .roleName(roleName)
+                                                .message("User registered and role assigned successfully")
+                                                .build()
+                                );
+                    }));
         });
     }
 
     @Override
     public Mono<TokenResponse> userLogin(UserLoginRequest request) {
-        return Mono.just(request)
-                .doOnNext(r -> LoggerUtils.info(UserServiceImpl.class,
-                        "Processing user login for username={}", r.getUsername()))
-                .doOnNext(userLoginValidator::validate)
+        return validatedLogin(request)
                 .flatMap(r -> keycloakUserClient.userLogin(
                         request.getUsername(),
                         request.getPassword())
                 );
     }
 
+    @Override
+    public Mono<DataBuffer> userLoginBody(UserLoginRequest request) {
+        return validatedLogin(request)
+                .flatMap(r -> keycloakUserClient.userLoginBody(
+                        request.getUsername(),
+                        request.getPassword())
+                );
+    }
+
+    private Mono<UserLoginRequest> validatedLogin(UserLoginRequest request) {
+        return Mono.just(request)
+                .doOnNext(r -> LoggerUtils.info(UserServiceImpl.class,
+                        "Processing user login for username={}", r.getUsername()))
+                .doOnNext(userLoginValidator::validate);
+    }
+
     @Override
     public Mono<UserResponse> getUserDetail(String userId, String authorization) {
         return Mono.defer(() -> {
             LoggerUtils.info(UserServiceImpl.class, "Getting user detail for userId={}", userId);
-            String adminToken = extractToken(authorization);
+            String callerToken = extractToken(authorization);
 
             userIdValidator.validate(userId);
 
-            return keycloakUserClient.getUserById(adminToken, userId);
+            return adminTokenManager.execute(callerToken, adminToken -> keycloakUserClient.getUserById(adminToken, userId));
+        });
+
+    }
+
+    @Override
+    public Flux<UserResponse> exportUsers(String authorization) {
+        return Flux.defer(() -> {
+            LoggerUtils.info(UserServiceImpl.class, "Exporting users, pageSize={}", exportConfig.getPageSize());
+            String callerToken = extractToken(authorization);
+            int pageSize = exportConfig.getPageSize();
+
+            // expand fetches the next page as soon as the current one is emitted, and
+            // concatMapIterable's prefetch bounds how many pages wait in memory
+            return fetchPage(callerToken, 0, pageSize)
+                    .expand(page -> page.users().size() < pageSize
+                            ? Mono.empty()
+                            : fetchPage(callerToken, page.first() + pageSize, pageSize))
+                    .concatMapIterable(UserPage::users, exportConfig.getPrefetchPages());
         });
+    }
 
+    private Mono<UserPage> fetchPage(String callerToken, int first, int max) {
+        return adminTokenManager.execute(callerToken, adminToken -> keycloakUserClient.listUsers(adminToken, first, max))
+                .map(users -> new UserPage(first, users));
     }
 
     @Override
     public Mono<Void> updateUser(String userId, UpdateUserRequest request, String authorization) {
         return Mono.defer(() -> {
             LoggerUtils.info(UserServiceImpl.class, "Updating user userId={}", userId);
-            String adminToken = extractToken(authorization);
+            String callerToken = extractToken(authorization);
 
             userIdValidator.validate(userId);
 
@@ -129,7 +188,7 @@ public class UserServiceImpl implements UserService {
             if (request.getEmailVerified() != null) body.put("emailVerified", request.getEmailVerified());
             if (request.getRequiredActions() != null) body.put("requiredActions", request.getRequiredActions());
 
-            return keycloakUserClient.updateUser(adminToken, userId, body);
+            return adminTokenManager.execute(callerToken, adminToken -> keycloakUserClient.updateUser(adminToken, userId, body));
         });
     }
 
@@ -137,7 +196,7 @@ public class UserServiceImpl implements UserService {
     public Mono<Void> updatePassword(String userId, UpdatePasswordRequest request, String authorization) {
         return Mono.defer(() -> {
             LoggerUtils.info(UserServiceImpl.class, "Updating password for userId={}", userId);
-            String adminToken = extractToken(authorization);
+            String callerToken = extractToken(authorization);
 
             if (userId == null || userId.isBlank()) {
                 return Mono.error(new BusinessException(ErrorCode.INVALID_REQUEST, "UserId is required"));
@@ -147,22 +206,56 @@ public class UserServiceImpl implements UserService {
             }
 
             boolean temporary = request.getTemporary() != null ? request.getTemporary() : false;
-            return keycloakUserClient.resetPassword(adminToken, userId, request.getPassword(), temporary);
+            return adminTokenManager.execute(callerToken,
+                    adminToken -> keycloakUserClient.resetPassword(adminToken, userId, request.getPassword(), temporary));
         });
     }
 
     @Override
     public Mono<IntrospectResponse> validateToken(ValidateTokenRequest request) {
-        return Mono.defer(() -> {
+        // Batch entries are subscribed as earlier ones complete, on whichever thread that is
+        return ContextMdc.deferWithMdc(() -> {
             LoggerUtils.info(UserServiceImpl.class, "Validating token");
 
             if (request.getToken() == null || request.getToken().isBlank()) {
                 return Mono.error(new BusinessException(ErrorCode.INVALID_REQUEST, "Token is required"));
             }
 
-            return keycloakUserClient.validateToken(request.getToken());
+            return tokenVerifier.verify(request.getToken());
+        });
+
+    }
+
+    @Override
+    public Mono<List<IntrospectResponse>> validateTokens(ValidateTokenBatchRequest request) {
+        return Mono.defer(() -> {
+            List<String> tokens = request.getTokens() == null ? List.of()
+                    : request.getTokens().stream().map(token -> token == null ? "" : token).toList();
+            if (tokens.isEmpty()) {
+                return Mono.error(new BusinessException(ErrorCode.INVALID_REQUEST, "Tokens are required"));
+            }
+            if (tokens.size() > batchConfig.getMaxTokens()) {
+                return Mono.error(new BusinessException(ErrorCode.INVALID_REQUEST,
+                        "At most " + batchConfig.getMaxTokens() + " tokens per batch"));
+            }
+
+            LinkedHashSet<String> distinct = new LinkedHashSet<>(tokens);
+            LoggerUtils.info(UserServiceImpl.class, "Validating token batch, size={}, distinct={}", tokens.size(), distinct.size());
+
+            return Flux.fromIterable(distinct)
+                    .flatMap(token -> validateBatchEntry(token).map(result -> Map.entry(token, result)),
+                            batchConfig.getConcurrency())
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    .map(results -> tokens.stream().map(results::get).toList());
         });
+    }
 
+    private Mono<IntrospectResponse> validateBatchEntry(String token) {
+        if (token.isBlank()) {
+            return Mono.just(IntrospectResponse.builder().active(false).build());
+        }
+        return validateToken(ValidateTokenRequest.builder().token(token).build())
+                .defaultIfEmpty(IntrospectResponse.builder().active(false).build());
     }
 
     @Override
@@ -174,8 +267,11 @@ public class UserServiceImpl implements UserService {
                 return Mono.error(new BusinessException(ErrorCode.INVALID_REQUEST, "Refresh token is required"));
             }
 
-            return keycloakUserClient.logout(request.getRefreshToken());
+            return keycloakUserClient.logout(request.getRefreshToken())
+                    .then(Mono.fromRunnable(() -> tokenVerifier.revokeSession(request.getRefreshToken())));
         });
     }
 
+    private record UserPage(int first, List<UserResponse> users) {
+    }
 }
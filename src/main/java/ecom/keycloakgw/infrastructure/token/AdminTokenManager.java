@@ -0,0 +1,183 @@
+package ecom.keycloakgw.infrastructure.token;
+
+import ecom.keycloakgw.domain.exception.BusinessException;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.infrastructure.client.KeycloakAuthClient;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Owns the gateway's service-account token for admin calls. The token is obtained with
+ * client_credentials, cached in memory and refreshed ahead of expiry with jitter, with at
+ * most one refresh in flight. The caller's token is verified before it is swapped for the
+ * gateway's: it must be active and carry the configured realm role, otherwise the call
+ * fails as unauthorized or forbidden without reaching Keycloak. When the service account
+ * is disabled, admin calls keep using the caller's token and Keycloak authorizes them.
+ */
+@Component
+public class AdminTokenManager implements InitializingBean, DisposableBean {
+
+    private static final long MIN_REMAINING_MILLIS = 5_000;
+
+    private final KeycloakAuthClient keycloakAuthClient;
+    private final TokenVerifier tokenVerifier;
+    private final KeycloakProperties.ServiceAccount config;
+
+    private final AtomicReference<Mono<CachedToken>> inFlightRefresh = new AtomicReference<>();
+    private volatile CachedToken current;
+    private volatile Disposable scheduledRefresh;
+
+    public AdminTokenManager(KeycloakAuthClient keycloakAuthClient, TokenVerifier tokenVerifier,
+                             KeycloakProperties properties) {
+        this.keycloakAuthClient = keycloakAuthClient;
+        this.tokenVerifier = tokenVerifier;
+        this.config = properties.getServiceAccount();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (config.isEnabled()) {
+            scheduleRefresh(jitter());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Disposable scheduled = scheduledRefresh;
+        if (scheduled != null) {
+            scheduled.dispose();
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public <T> Mono<T> execute(String callerToken, Function<String, Mono<T>> call) {
+        if (!config.isEnabled()) {
+            return call.apply(callerToken);
+        }
+        return authorizeCaller(callerToken).then(ContextMdc.deferWithMdc(() -> executeAsServiceAccount(call)));
+    }
+
+    /**
+     * Runs {@code call} with the service-account token and no caller check, for the gateway's
+     * own background calls such as the role refresh.
+     */
+    public <T> Mono<T> executeAsServiceAccount(Function<String, Mono<T>> call) {
+        // The token may arrive on another thread; the call is built there and logs its request
+        return token().flatMap(token -> ContextMdc.deferWithMdc(() -> call.apply(token))
+                .onErrorResume(AdminTokenManager::isUnauthorized, ex -> ContextMdc.deferWithMdc(() -> {
+                    LoggerUtils.warn(AdminTokenManager.class, "Service account token rejected, refreshing and retrying once");
+                    invalidate(token);
+                    return token().flatMap(fresh -> ContextMdc.deferWithMdc(() -> call.apply(fresh)));
+                })));
+    }
+
+    private Mono<Void> authorizeCaller(String callerToken) {
+        if (callerToken == null || callerToken.isBlank()) {
+            return Mono.error(new BusinessException(ErrorCode.UNAUTHORIZED, "Caller token is required"));
+        }
+        return tokenVerifier.verify(callerToken)
+                .switchIfEmpty(Mono.error(() -> new BusinessException(ErrorCode.UNAUTHORIZED, "Caller token is not active")))
+                .flatMap(caller -> ContextMdc.deferWithMdc(() -> {
+                    if (!Boolean.TRUE.equals(caller.getActive())) {
+                        return Mono.error(new BusinessException(ErrorCode.UNAUTHORIZED, "Caller token is not active"));
+                    }
+                    if (!caller.hasRealmRole(config.getCallerRole())) {
+                        LoggerUtils.warn(AdminTokenManager.class, "Admin call refused, caller {} lacks realm role {}",
+                                caller.getUsername(), config.getCallerRole());
+                        return Mono.error(new BusinessException(ErrorCode.FORBIDDEN,
+                                "Caller lacks realm role " + config.getCallerRole()));
+                    }
+                    return Mono.empty();
+                }))
+                .then();
+    }
+
+    public Mono<String> token() {
+        CachedToken cached = current;
+        if (cached != null && cached.usableAt(System.currentTimeMillis())) {
+            return Mono.just(cached.value());
+        }
+        return refresh().map(CachedToken::value);
+    }
+
+    private Mono<CachedToken> refresh() {
+        while (true) {
+            Mono<CachedToken> running = inFlightRefresh.get();
+            if (running != null) {
+                return running;
+            }
+            Mono<CachedToken> fresh = keycloakAuthClient
+                    .clientCredentialsLogin(config.getRealm(), config.getClientId(), config.getClientSecret())
+                    .map(response -> {
+                        if (response.getAccessToken() == null || response.getExpiresIn() == null) {
+                            throw new BusinessException(ErrorCode.KEYCLOAK_ERROR, "Service account token response is incomplete");
+                        }
+                        return new CachedToken(response.getAccessToken(),
+                                System.currentTimeMillis() + response.getExpiresIn() * 1000);
+                    })
+                    .doOnNext(token -> {
+                        current = token;
+                        long lifetime = token.expiresAtMillis() - System.currentTimeMillis();
+                        scheduleRefresh(Duration.ofMillis(Math.max(1_000,
+                                lifetime - config.getRefreshSkew().toMillis() - jitter().toMillis())));
+                    })
+                    .doOnError(ex -> scheduleRefresh(config.getRetryDelay().plus(jitter())))
+                    .doFinally(signal -> inFlightRefresh.set(null))
+                    .cache();
+            if (inFlightRefresh.compareAndSet(null, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private void invalidate(String rejectedToken) {
+        CachedToken cached = current;
+        if (cached != null && cached.value().equals(rejectedToken)) {
+            current = null;
+        }
+    }
+
+    private void scheduleRefresh(Duration delay) {
+        Disposable next = Schedulers.parallel().schedule(() -> refresh().subscribe(
+                token -> LoggerUtils.info(AdminTokenManager.class, "Service account token refreshed"),
+                ex -> LoggerUtils.warn(AdminTokenManager.class, "Service account token refresh failed: {}", ex.getMessage())),
+                delay.toMillis(), TimeUnit.MILLISECONDS);
+        Disposable previous = scheduledRefresh;
+        scheduledRefresh = next;
+        if (previous != null) {
+            previous.dispose();
+        }
+    }
+
+    private Duration jitter() {
+        long bound = config.getRefreshJitter().toMillis();
+        return Duration.ofMillis(bound > 0 ? ThreadLocalRandom.current().nextLong(bound) : 0);
+    }
+
+    private static boolean isUnauthorized(Throwable ex) {
+        return ex instanceof BusinessException business && business.getErrorCode() == ErrorCode.UNAUTHORIZED;
+    }
+
+    private record CachedToken(String value, long expiresAtMillis) {
+
+        boolean usableAt(long nowMillis) {
+            return nowMillis + MIN_REMAINING_MILLIS < expiresAtMillis;
+        }
+    }
+}
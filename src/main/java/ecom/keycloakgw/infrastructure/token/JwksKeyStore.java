@@ -0,0 +1,124 @@
+package ecom.keycloakgw.infrastructure.token;
+
+import ecom.keycloakgw.application.dto.response.JwksResponse;
+import ecom.keycloakgw.domain.utils.ETokenValidationMode;
+import ecom.keycloakgw.infrastructure.client.KeycloakUserClient;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Realm signing keys indexed by {@code kid}. Keys are loaded in the background and
+ * re-fetched on demand when a token references a key we have not seen yet.
+ */
+@Component
+public class JwksKeyStore implements InitializingBean, DisposableBean {
+
+    private final KeycloakUserClient keycloakUserClient;
+    private final KeycloakProperties properties;
+
+    private final AtomicReference<Mono<Map<String, PublicKey>>> inFlightRefresh = new AtomicReference<>();
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long lastRefreshNanos;
+    private Disposable scheduledRefresh;
+
+    public JwksKeyStore(KeycloakUserClient keycloakUserClient, KeycloakProperties properties) {
+        this.keycloakUserClient = keycloakUserClient;
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        KeycloakProperties.TokenValidation config = properties.getTokenValidation();
+        if (config.getMode() == ETokenValidationMode.REMOTE) {
+            return;
+        }
+        scheduledRefresh = Flux.interval(Duration.ZERO, config.getJwksRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh()
+                        .onErrorResume(ex -> {
+                            LoggerUtils.warn(JwksKeyStore.class, "Scheduled signing key refresh failed: {}", ex.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.dispose();
+        }
+    }
+
+    public Mono<PublicKey> getKey(String kid) {
+        PublicKey key = keys.get(kid);
+        if (key != null) {
+            return Mono.just(key);
+        }
+        long sinceLastRefresh = System.nanoTime() - lastRefreshNanos;
+        if (lastRefreshNanos != 0
+                && sinceLastRefresh < properties.getTokenValidation().getJwksMinRefreshInterval().toNanos()) {
+            return Mono.empty();
+        }
+        LoggerUtils.info(JwksKeyStore.class, "Unknown signing key kid={}, refreshing key set", kid);
+        return refresh().flatMap(refreshed -> Mono.justOrEmpty(refreshed.get(kid)));
+    }
+
+    public Mono<Map<String, PublicKey>> refresh() {
+        while (true) {
+            Mono<Map<String, PublicKey>> current = inFlightRefresh.get();
+            if (current != null) {
+                return current;
+            }
+            Mono<Map<String, PublicKey>> fresh = keycloakUserClient.getJwks()
+                    .map(this::toPublicKeys)
+                    .doOnNext(loaded -> {
+                        keys = loaded;
+                        lastRefreshNanos = System.nanoTime();
+                    })
+                    .doFinally(signal -> inFlightRefresh.set(null))
+                    .cache();
+            if (inFlightRefresh.compareAndSet(null, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private Map<String, PublicKey> toPublicKeys(JwksResponse jwks) {
+        Map<String, PublicKey> loaded = new HashMap<>();
+        if (jwks.getKeys() == null) {
+            return loaded;
+        }
+        for (JwksResponse.Key jwk : jwks.getKeys()) {
+            if (!"RSA".equals(jwk.getKty()) || jwk.getKid() == null
+                    || (jwk.getUse() != null && !"sig".equals(jwk.getUse()))) {
+                continue;
+            }
+            try {
+                Base64.Decoder decoder = Base64.getUrlDecoder();
+                RSAPublicKeySpec spec = new RSAPublicKeySpec(
+                        new BigInteger(1, decoder.decode(jwk.getN())),
+                        new BigInteger(1, decoder.decode(jwk.getE())));
+                loaded.put(jwk.getKid(), KeyFactory.getInstance("RSA").generatePublic(spec));
+            } catch (Exception ex) {
+                LoggerUtils.warn(JwksKeyStore.class, "Skipping unusable signing key kid={}: {}", jwk.getKid(), ex.getMessage());
+            }
+        }
+        return Map.copyOf(loaded);
+    }
+}
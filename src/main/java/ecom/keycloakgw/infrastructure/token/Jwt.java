@@ -0,0 +1,59 @@
+package ecom.keycloakgw.infrastructure.token;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Decoded compact JWS. Parsing never checks the signature; callers decide whether
+ * the claims can be trusted.
+ */
+public record Jwt(Map<String, Object> header, Map<String, Object> claims, byte[] signingInput, byte[] signature) {
+
+    @SuppressWarnings("unchecked")
+    public static Jwt parse(String token, JsonMapper jsonMapper) {
+        if (token == null) {
+            return null;
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            Map<String, Object> header = jsonMapper.readValue(
+                    decoder.decode(token.substring(0, firstDot)), Map.class);
+            Map<String, Object> claims = jsonMapper.readValue(
+                    decoder.decode(token.substring(firstDot + 1, secondDot)), Map.class);
+            // A segment holding the JSON literal null reads as a null map
+            if (header == null || claims == null) {
+                return null;
+            }
+            byte[] signingInput = token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII);
+            byte[] signature = decoder.decode(token.substring(secondDot + 1));
+            return new Jwt(header, claims, signingInput, signature);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    public String sessionId() {
+        String sid = claimString("sid");
+        return sid != null ? sid : claimString("session_state");
+    }
+
+    String headerString(String name) {
+        return header.get(name) instanceof String value ? value : null;
+    }
+
+    String claimString(String name) {
+        return claims.get(name) instanceof String value ? value : null;
+    }
+
+    Long claimLong(String name) {
+        return claims.get(name) instanceof Number value ? value.longValue() : null;
+    }
+}
@@ -0,0 +1,143 @@
+package ecom.keycloakgw.infrastructure.token;
+
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies Keycloak access tokens against the cached realm key set and maps the claims
+ * to the same shape the introspection endpoint returns. An empty result means the token
+ * cannot be judged locally (unsupported algorithm, unknown key, key set unavailable).
+ */
+@Component
+public class LocalJwtVerifier {
+
+    private static final Map<String, String> SIGNATURE_ALGORITHMS = Map.of(
+            "RS256", "SHA256withRSA",
+            "RS384", "SHA384withRSA",
+            "RS512", "SHA512withRSA");
+
+    private final JwksKeyStore jwksKeyStore;
+    private final KeycloakProperties properties;
+    private final JsonMapper jsonMapper;
+    private final String expectedIssuer;
+
+    public LocalJwtVerifier(JwksKeyStore jwksKeyStore, KeycloakProperties properties, JsonMapper jsonMapper) {
+        this.jwksKeyStore = jwksKeyStore;
+        this.properties = properties;
+        this.jsonMapper = jsonMapper;
+        String issuer = properties.getTokenValidation().getIssuer();
+        this.expectedIssuer = issuer != null && !issuer.isBlank()
+                ? issuer
+                : properties.getBaseUrl() + "/realms/" + properties.getEcom().getEcomRealm();
+    }
+
+    public Mono<IntrospectResponse> verify(String token) {
+        Jwt jwt = Jwt.parse(token, jsonMapper);
+        if (jwt == null) {
+            LoggerUtils.info(LocalJwtVerifier.class, "Token is not a well-formed JWT");
+            return Mono.just(inactive());
+        }
+
+        String algorithm = SIGNATURE_ALGORITHMS.get(jwt.headerString("alg"));
+        String kid = jwt.headerString("kid");
+        if (algorithm == null || kid == null) {
+            return Mono.empty();
+        }
+
+        return jwksKeyStore.getKey(kid)
+                .map(key -> verifySignature(jwt, algorithm, key) ? checkClaims(jwt) : inactive())
+                .onErrorResume(ex -> Mono.deferContextual(ctx -> {
+                    ContextMdc.run(ctx, () -> LoggerUtils.warn(LocalJwtVerifier.class,
+                            "Signing keys unavailable: {}", ex.getMessage()));
+                    return Mono.empty();
+                }));
+    }
+
+    private boolean verifySignature(Jwt jwt, String algorithm, PublicKey key) {
+        try {
+            Signature signature = Signature.getInstance(algorithm);
+            signature.initVerify(key);
+            signature.update(jwt.signingInput());
+            return signature.verify(jwt.signature());
+        } catch (GeneralSecurityException ex) {
+            LoggerUtils.warn(LocalJwtVerifier.class, "Signature check failed: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    private IntrospectResponse checkClaims(Jwt jwt) {
+        KeycloakProperties.TokenValidation config = properties.getTokenValidation();
+        long now = System.currentTimeMillis() / 1000;
+        long skew = config.getClockSkew().toSeconds();
+
+        Long exp = jwt.claimLong("exp");
+        if (exp == null || now - skew >= exp) {
+            LoggerUtils.info(LocalJwtVerifier.class, "Token rejected: expired");
+            return inactive();
+        }
+        Long nbf = jwt.claimLong("nbf");
+        if (nbf != null && now + skew < nbf) {
+            LoggerUtils.info(LocalJwtVerifier.class, "Token rejected: not yet valid");
+            return inactive();
+        }
+        if (!expectedIssuer.equals(jwt.claimString("iss"))) {
+            LoggerUtils.info(LocalJwtVerifier.class, "Token rejected: unexpected issuer");
+            return inactive();
+        }
+        if (!audienceAccepted(jwt, config.getAudiences())) {
+            LoggerUtils.info(LocalJwtVerifier.class, "Token rejected: audience mismatch");
+            return inactive();
+        }
+
+        return IntrospectResponse.builder()
+                .active(true)
+                .username(jwt.claimString("preferred_username"))
+                .clientId(jwt.claimString("azp"))
+                .tokenType(jwt.claimString("typ"))
+                .scope(jwt.claimString("scope"))
+                .sub(jwt.claimString("sub"))
+                .exp(exp)
+                .iat(jwt.claimLong("iat"))
+                .sid(jwt.sessionId())
+                .realmAccess(realmAccess(jwt))
+                .build();
+    }
+
+    private static IntrospectResponse.RealmAccess realmAccess(Jwt jwt) {
+        if (jwt.claims().get("realm_access") instanceof Map<?, ?> access
+                && access.get("roles") instanceof Collection<?> roles) {
+            return new IntrospectResponse.RealmAccess(roles.stream().map(String::valueOf).toList());
+        }
+        return null;
+    }
+
+    private boolean audienceAccepted(Jwt jwt, List<String> audiences) {
+        if (audiences == null || audiences.isEmpty()) {
+            return true;
+        }
+        Object aud = jwt.claims().get("aud");
+        if (aud instanceof String single) {
+            return audiences.contains(single);
+        }
+        if (aud instanceof Collection<?> many) {
+            return many.stream().anyMatch(audiences::contains);
+        }
+        return false;
+    }
+
+    private static IntrospectResponse inactive() {
+        return IntrospectResponse.builder().active(false).build();
+    }
+}
@@ -0,0 +1,55 @@
+package ecom.keycloakgw.infrastructure.token;
+
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.infrastructure.cache.IntrospectionResultCache;
+import ecom.keycloakgw.infrastructure.client.KeycloakUserClient;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.log.utils.LoggerUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+public class TokenVerifier {
+
+    private final KeycloakUserClient keycloakUserClient;
+    private final LocalJwtVerifier localJwtVerifier;
+    private final IntrospectionResultCache introspectionResultCache;
+    private final KeycloakProperties properties;
+
+    public TokenVerifier(KeycloakUserClient keycloakUserClient, LocalJwtVerifier localJwtVerifier,
+                         IntrospectionResultCache introspectionResultCache, KeycloakProperties properties) {
+        this.keycloakUserClient = keycloakUserClient;
+        this.localJwtVerifier = localJwtVerifier;
+        this.introspectionResultCache = introspectionResultCache;
+        this.properties = properties;
+    }
+
+    public Mono<IntrospectResponse> verify(String token) {
+        return switch (properties.getTokenValidation().getMode()) {
+            case REMOTE -> introspect(token);
+            case LOCAL -> verifyLocally(token)
+                    .defaultIfEmpty(IntrospectResponse.builder().active(false).build());
+            case LOCAL_WITH_FALLBACK -> verifyLocally(token)
+                    .switchIfEmpty(ContextMdc.deferWithMdc(() -> {
+                        LoggerUtils.info(TokenVerifier.class, "Local verification undecided, falling back to introspection");
+                        return introspect(token);
+                    }));
+        };
+    }
+
+    public void revokeSession(String token) {
+        introspectionResultCache.evictSession(token);
+    }
+
+    private Mono<IntrospectResponse> verifyLocally(String token) {
+        return localJwtVerifier.verify(token)
+                .map(result -> Boolean.TRUE.equals(result.getActive()) && introspectionResultCache.isSessionRevoked(result.getSid())
+                        ? IntrospectResponse.builder().active(false).build()
+                        : result);
+    }
+
+    private Mono<IntrospectResponse> introspect(String token) {
+        return introspectionResultCache.get(token, keycloakUserClient::validateToken);
+    }
+}
@@ -0,0 +1,149 @@
+package ecom.keycloakgw.api.controller;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import ecom.keycloakgw.infrastructure.logging.ContextMdc;
+import ecom.keycloakgw.load.KeycloakSimulator;
+import ecom.keycloakgw.load.LatencyDistribution;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Every line the controllers, services and Keycloak clients write while serving a request
+ * carries that request's id, including the lines written after the {@code @RequestBody}
+ * has been read on another event-loop turn.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RequestMdcTest {
+
+    private static final KeycloakSimulator SIMULATOR = KeycloakSimulator.start(LatencyDistribution.none(), 3);
+    private static final Set<String> REQUEST_LOGGERS = Set.of(
+            "ecom.keycloakgw.api.controller.AuthController",
+            "ecom.keycloakgw.api.controller.UserController",
+            "ecom.keycloakgw.infrastructure.service.AuthServiceImpl",
+            "ecom.keycloakgw.infrastructure.service.UserServiceImpl",
+            "ecom.keycloakgw.infrastructure.client.KeycloakAuthClient",
+            "ecom.keycloakgw.infrastructure.client.KeycloakUserClient",
+            "ecom.keycloakgw.infrastructure.token.TokenVerifier");
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("ecom.keycloakgw");
+    private final CapturingAppender appender = new CapturingAppender();
+
+    @LocalServerPort
+    private int port;
+
+    private WebClient client;
+
+    @DynamicPropertySource
+    static void keycloak(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.base-url", SIMULATOR::baseUrl);
+        registry.add("gateway.rate-limit.enabled", () -> false);
+    }
+
+    @AfterAll
+    static void stopSimulator() {
+        SIMULATOR.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        appender.setContext((LoggerContext) LoggerFactory.getILoggerFactory());
+        appender.start();
+        logger.addAppender(appender);
+        client = WebClient.create("http://127.0.0.1:" + port);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void requestBodyEndpointsLogUnderTheirOwnRequestId() throws InterruptedException {
+        String admin = "Bearer " + SIMULATOR.accessToken("master", "admin");
+        String userToken = SIMULATOR.accessToken("ecom", "seed-user-1");
+
+        assertLoggedUnder("mdc-admin-login", HttpMethod.POST, "/api/v1/auth/admin/login", null,
+                Map.of("username", "admin", "password", "admin"));
+        assertLoggedUnder("mdc-user-login", HttpMethod.POST, "/api/v1/users/login", null,
+                Map.of("username", "seed-user-1", "password", "secret"));
+        assertLoggedUnder("mdc-register", HttpMethod.POST, "/api/v1/users/register", admin,
+                Map.of("username", "mdc-user", "password", "secret", "email", "mdc@example.com",
+                        "firstName", "M", "lastName", "D"));
+        assertLoggedUnder("mdc-batch", HttpMethod.POST, "/api/v1/users/validate-token/batch", null,
+                Map.of("tokens", List.of(userToken, "not-a-jwt")));
+    }
+
+    @Test
+    void pathUserIdIsLoggedAsUserId() throws InterruptedException {
+        String admin = "Bearer " + SIMULATOR.accessToken("master", "admin");
+        String userId = SIMULATOR.anyUserId();
+
+        List<ILoggingEvent> events = assertLoggedUnder("mdc-update", HttpMethod.PUT, "/api/v1/users/" + userId, admin,
+                Map.of("firstName", "Updated"));
+
+        for (ILoggingEvent event : events) {
+            assertEquals(userId, event.getMDCPropertyMap().get(ContextMdc.USER_ID_KEY), event::getFormattedMessage);
+        }
+    }
+
+    private List<ILoggingEvent> assertLoggedUnder(String requestId, HttpMethod method, String path,
+                                                  String authorization, Object body) throws InterruptedException {
+        appender.events.clear();
+        WebClient.RequestBodySpec request = client.method(method).uri(path)
+                .header(RequestIdWebFilter.REQUEST_ID_HEADER, requestId)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        Map<?, ?> response = request.bodyValue(body).retrieve().bodyToMono(Map.class).block(Duration.ofSeconds(10));
+        assertEquals("00", response.get("code"), () -> path + " answered " + response);
+        // lines written as the response completes may land just after the client sees it
+        Thread.sleep(100);
+
+        List<ILoggingEvent> events = appender.events.stream()
+                .filter(event -> REQUEST_LOGGERS.contains(event.getLoggerName()))
+                .toList();
+        assertFalse(events.isEmpty(), path);
+        for (ILoggingEvent event : events) {
+            assertEquals(requestId, event.getMDCPropertyMap().get(RequestIdWebFilter.REQUEST_ID_KEY),
+                    () -> event.getLoggerName() + ": " + event.getFormattedMessage());
+        }
+        return events;
+    }
+
+    private static final class CapturingAppender extends AppenderBase<ILoggingEvent> {
+
+        private final Queue<ILoggingEvent> events = new ConcurrentLinkedQueue<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            event.prepareForDeferredProcessing();
+            events.add(event);
+        }
+    }
+}
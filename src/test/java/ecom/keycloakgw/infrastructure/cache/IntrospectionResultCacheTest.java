@@ -0,0 +1,129 @@
+package ecom.keycloakgw.infrastructure.cache;
+
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keying, lifetimes and logout eviction of {@link IntrospectionResultCache}.
+ */
+class IntrospectionResultCacheTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void resultsAreKeyedByTokenDigest() {
+        IntrospectionResultCache cache = cache(Duration.ofMinutes(5), Duration.ofSeconds(10));
+        Function<String, Mono<IntrospectResponse>> loader = loader(active("sid-1", 300));
+
+        cache.get("token-a", loader).block();
+        cache.get("token-a", loader).block();
+        cache.get(new String("token-a".toCharArray()), loader).block();
+        cache.get("token-b", loader).block();
+
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void activeResultLivesUntilTheTokenExpires() throws InterruptedException {
+        IntrospectionResultCache cache = cache(Duration.ofMinutes(5), Duration.ofSeconds(10));
+        Function<String, Mono<IntrospectResponse>> loader = loader(active("sid-1", 1));
+
+        cache.get("token", loader).block();
+        cache.get("token", loader).block();
+        assertEquals(1, loads.get());
+
+        Thread.sleep(1_100);
+        cache.get("token", loader).block();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void activeResultIsCappedByMaxTtl() throws InterruptedException {
+        IntrospectionResultCache cache = cache(Duration.ofMillis(200), Duration.ofSeconds(10));
+        Function<String, Mono<IntrospectResponse>> loader = loader(active("sid-1", 300));
+
+        cache.get("token", loader).block();
+        Thread.sleep(300);
+        cache.get("token", loader).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void inactiveResultLivesForNegativeTtl() throws InterruptedException {
+        IntrospectionResultCache cache = cache(Duration.ofMinutes(5), Duration.ofMillis(200));
+        Function<String, Mono<IntrospectResponse>> loader = loader(IntrospectResponse.builder().active(false).build());
+
+        cache.get("token", loader).block();
+        cache.get("token", loader).block();
+        assertEquals(1, loads.get());
+
+        Thread.sleep(300);
+        cache.get("token", loader).block();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void logoutEvictsEveryTokenOfTheSessionAndKeepsLateResultsOut() {
+        IntrospectionResultCache cache = cache(Duration.ofMinutes(5), Duration.ofSeconds(10));
+        Function<String, Mono<IntrospectResponse>> session = loader(active("sid-1", 300));
+        cache.get("access-1", session).block();
+        cache.get("access-2", session).block();
+        cache.get("other", loader(active("sid-2", 300))).block();
+        assertEquals(3, loads.get());
+
+        cache.evictSession(refreshToken("sid-1"));
+
+        assertTrue(cache.isSessionRevoked("sid-1"));
+        assertFalse(cache.isSessionRevoked("sid-2"));
+        assertEquals(1, cache.size());
+        // an introspection of the revoked session that completes now is not cached
+        cache.get("access-1", session).block();
+        cache.get("access-1", session).block();
+        assertEquals(5, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    private IntrospectionResultCache cache(Duration maxTtl, Duration negativeTtl) {
+        KeycloakProperties properties = new KeycloakProperties();
+        properties.getIntrospectionCache().setMaxTtl(maxTtl);
+        properties.getIntrospectionCache().setNegativeTtl(negativeTtl);
+        return new IntrospectionResultCache(properties, jsonMapper);
+    }
+
+    private Function<String, Mono<IntrospectResponse>> loader(IntrospectResponse response) {
+        return token -> Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return response;
+        });
+    }
+
+    private static IntrospectResponse active(String sid, long secondsToExpiry) {
+        return IntrospectResponse.builder()
+                .active(true)
+                .sid(sid)
+                .exp(System.currentTimeMillis() / 1000 + secondsToExpiry)
+                .build();
+    }
+
+    private static String refreshToken(String sid) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(("{\"sid\":\"" + sid + "\"}").getBytes(StandardCharsets.UTF_8)) + ".c2ln";
+    }
+}
@@ -0,0 +1,48 @@
+package ecom.keycloakgw.infrastructure.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A rate limit that would give a zero or overflowing emission interval is rejected when
+ * the properties are bound.
+ */
+class GatewayPropertiesBindingTest {
+
+    private static final String LIMIT = "gateway.rate-limit.routes[0].per-ip.";
+
+    @Test
+    void positiveLimitBinds() {
+        GatewayProperties properties = bind(Map.of(
+                "gateway.rate-limit.routes[0].path", "/api/v1/users/login",
+                LIMIT + "capacity", "5",
+                LIMIT + "refill-per-second", "0.1"));
+
+        GatewayProperties.Limit limit = properties.getRateLimit().getRoutes().get(0).getPerIp();
+        assertEquals(5, limit.getCapacity());
+        assertEquals(0.1, limit.getRefillPerSecond());
+    }
+
+    @Test
+    void nonPositiveRefillIsRejected() {
+        assertThrows(BindException.class, () -> bind(Map.of(LIMIT + "capacity", "5", LIMIT + "refill-per-second", "0")));
+        assertThrows(BindException.class, () -> bind(Map.of(LIMIT + "capacity", "5", LIMIT + "refill-per-second", "-1")));
+    }
+
+    @Test
+    void emptyBucketIsRejected() {
+        assertThrows(BindException.class, () -> bind(Map.of(LIMIT + "capacity", "0", LIMIT + "refill-per-second", "1")));
+    }
+
+    private static GatewayProperties bind(Map<String, String> values) {
+        Binder binder = new Binder(new MapConfigurationPropertySource(values));
+        return binder.bindOrCreate("gateway", GatewayProperties.class);
+    }
+}
@@ -0,0 +1,45 @@
+package ecom.keycloakgw.infrastructure.config;
+
+import ecom.keycloakgw.infrastructure.resilience.EKeycloakOperation;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * A resilience group override only replaces the fields it sets; the rest come from
+ * {@code resilience.defaults}, not from the {@code Policy} initializers.
+ */
+class KeycloakPropertiesBindingTest {
+
+    @Test
+    void groupOverrideIsMergedOntoTheConfiguredDefaults() {
+        KeycloakProperties properties = bind(Map.of(
+                "keycloak.resilience.defaults.failure-rate-threshold", "25",
+                "keycloak.resilience.defaults.wait-duration-in-open-state", "45s",
+                "keycloak.resilience.defaults.max-concurrent-calls", "300",
+                "keycloak.resilience.groups.admin-write.sliding-window-size", "20",
+                "keycloak.resilience.groups.admin-write.max-concurrent-calls", "20"));
+
+        KeycloakProperties.Resilience resilience = properties.getResilience();
+        KeycloakProperties.Resilience.Policy adminWrite = resilience.policyFor(EKeycloakOperation.Group.ADMIN_WRITE);
+
+        assertEquals(20, adminWrite.getSlidingWindowSize());
+        assertEquals(20, adminWrite.getMaxConcurrentCalls());
+        assertEquals(25f, adminWrite.getFailureRateThreshold());
+        assertEquals(Duration.ofSeconds(45), adminWrite.getWaitDurationInOpenState());
+        assertEquals(20, adminWrite.getMinimumNumberOfCalls(), "unset in both, the Policy default applies");
+        assertEquals(300, resilience.getDefaults().getMaxConcurrentCalls(), "the override must not change the defaults");
+        assertSame(resilience.getDefaults(), resilience.policyFor(EKeycloakOperation.Group.LOGIN));
+    }
+
+    private static KeycloakProperties bind(Map<String, String> values) {
+        Binder binder = new Binder(new MapConfigurationPropertySource(values));
+        return binder.bindOrCreate("keycloak", KeycloakProperties.class);
+    }
+}
@@ -0,0 +1,160 @@
+package ecom.keycloakgw.infrastructure.filter;
+
+import ecom.keycloakgw.infrastructure.config.GatewayProperties;
+import ecom.keycloakgw.infrastructure.json.JsonCodecs;
+import ecom.keycloakgw.infrastructure.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The login routes are limited per client IP and per username; a rejected request gets
+ * 429 with Retry-After, an oversized body 413, and an admitted request reaches the
+ * controller with its body unchanged.
+ */
+class RateLimitWebFilterTest {
+
+    private static final String LOGIN = "/api/v1/users/login";
+
+    private final List<String> forwardedBodies = new ArrayList<>();
+    private final WebFilterChain chain = exchange -> DataBufferUtils.join(exchange.getRequest().getBody())
+            .map(buffer -> {
+                String body = buffer.toString(StandardCharsets.UTF_8);
+                DataBufferUtils.release(buffer);
+                return body;
+            })
+            .defaultIfEmpty("")
+            .doOnNext(forwardedBodies::add)
+            .then();
+
+    private GatewayProperties properties;
+    private GatewayProperties.Route route;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GatewayProperties();
+        properties.getRateLimit().setMaxBodyBytes(256);
+        route = new GatewayProperties.Route();
+        route.setPath(LOGIN);
+        properties.getRateLimit().setRoutes(List.of(route));
+    }
+
+    @Test
+    void usernameOverItsLimitGets429WithRetryAfter() {
+        route.setPerUsername(limit(2, 0.1));
+        RateLimitWebFilter filter = filter();
+
+        assertEquals(HttpStatus.OK, status(filter, login("alice", "10.0.0.1")));
+        assertEquals(HttpStatus.OK, status(filter, login("alice", "10.0.0.2")));
+        MockServerWebExchange rejected = login("alice", "10.0.0.3");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, status(filter, rejected));
+        assertEquals("10", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(rejected.getResponse().getBodyAsString().block().contains("\"code\""));
+        assertEquals(2, forwardedBodies.size());
+    }
+
+    @Test
+    void usernamesAreComparedIgnoringCase() {
+        route.setPerUsername(limit(1, 0.1));
+        RateLimitWebFilter filter = filter();
+
+        assertEquals(HttpStatus.OK, status(filter, login("Alice", "10.0.0.1")));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, status(filter, login("ALICE", "10.0.0.2")));
+        assertEquals(HttpStatus.OK, status(filter, login("bob", "10.0.0.3")));
+    }
+
+    @Test
+    void clientIpOverItsLimitGets429BeforeTheBodyIsRead() {
+        route.setPerIp(limit(1, 0.5));
+        RateLimitWebFilter filter = filter();
+
+        assertEquals(HttpStatus.OK, status(filter, login("alice", "10.0.0.1")));
+        MockServerWebExchange rejected = login("bob", "10.0.0.1");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, status(filter, rejected));
+        assertEquals("2", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(HttpStatus.OK, status(filter, login("alice", "10.0.0.2")));
+    }
+
+    @Test
+    void bodyOverTheLimitGets413() {
+        route.setPerUsername(limit(5, 1));
+        RateLimitWebFilter filter = filter();
+        String body = "{\"username\":\"alice\",\"password\":\"" + "x".repeat(300) + "\"}";
+
+        MockServerWebExchange exchange = exchange(body, "10.0.0.1");
+
+        assertEquals(HttpStatus.CONTENT_TOO_LARGE, status(filter, exchange));
+        assertTrue(forwardedBodies.isEmpty());
+    }
+
+    @Test
+    void admittedBodyReachesTheControllerUnchanged() {
+        route.setPerUsername(limit(5, 1));
+        RateLimitWebFilter filter = filter();
+        String body = "{ \"username\" : \"Alice\", \"password\":\"pässword ✓\", \"extra\": [1, 2] }";
+
+        assertEquals(HttpStatus.OK, status(filter, exchange(body, "10.0.0.1")));
+
+        assertEquals(List.of(body), forwardedBodies);
+    }
+
+    @Test
+    void otherPathsAreNotLimited() {
+        route.setPerIp(limit(1, 0.1));
+        RateLimitWebFilter filter = filter();
+
+        for (int i = 0; i < 3; i++) {
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/v1/users/logout")
+                    .remoteAddress(new InetSocketAddress("10.0.0.1", 5000))
+                    .body("{}"));
+            assertEquals(HttpStatus.OK, status(filter, exchange));
+        }
+        assertEquals(3, forwardedBodies.size());
+    }
+
+    private RateLimitWebFilter filter() {
+        return new RateLimitWebFilter(new RateLimiter(properties), properties,
+                new JsonCodecs(JsonMapper.builder().build()), new SimpleMeterRegistry());
+    }
+
+    private HttpStatus status(RateLimitWebFilter filter, MockServerWebExchange exchange) {
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange.getResponse().getStatusCode() == null
+                ? HttpStatus.OK : HttpStatus.valueOf(exchange.getResponse().getStatusCode().value());
+    }
+
+    private static MockServerWebExchange login(String username, String ip) {
+        return exchange("{\"username\":\"" + username + "\",\"password\":\"secret\"}", ip);
+    }
+
+    private static MockServerWebExchange exchange(String body, String ip) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post(LOGIN)
+                .remoteAddress(new InetSocketAddress(ip, 5000))
+                .body(body));
+    }
+
+    private static GatewayProperties.Limit limit(int capacity, double refillPerSecond) {
+        GatewayProperties.Limit limit = new GatewayProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRefillPerSecond(refillPerSecond);
+        return limit;
+    }
+}
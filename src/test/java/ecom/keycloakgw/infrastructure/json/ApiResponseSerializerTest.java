@@ -0,0 +1,70 @@
+package ecom.keycloakgw.infrastructure.json;
+
+import ecom.keycloakgw.application.dto.ApiResponse;
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.application.dto.response.TokenResponse;
+import ecom.keycloakgw.application.dto.response.UserResponse;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link ApiResponseSerializer} must write exactly what the bean serializer writes.
+ */
+class ApiResponseSerializerTest {
+
+    private final JsonMapper beanMapper = JsonMapper.builder().build();
+    private final JsonMapper fastMapper = JsonMapper.builder()
+            .addModule(new SimpleModule().addSerializer(new ApiResponseSerializer()))
+            .build();
+    private final JsonCodecs jsonCodecs = new JsonCodecs(fastMapper);
+
+    @Test
+    void envelopesMatchTheBeanSerializer() {
+        List<ApiResponse<?>> responses = List.of(
+                ApiResponse.success("req-1", TokenResponse.builder()
+                        .accessToken("a.b.c").expiresIn(300L).tokenType("Bearer").notBeforePolicy(0).build()),
+                ApiResponse.success("req-\"2\"", IntrospectResponse.builder().active(false).build()),
+                ApiResponse.success("req-3", List.of(IntrospectResponse.builder().active(true).exp(1L).build())),
+                ApiResponse.success("req-4", UserResponse.builder()
+                        .username("é").attributes(Map.of("locale", List.of("en"))).build()),
+                ApiResponse.success("req-5", "User updated"),
+                ApiResponse.success(null, null),
+                ApiResponse.error("req-6", ErrorCode.UNAUTHORIZED.getCode(), ErrorCode.UNAUTHORIZED.getMessage()),
+                new ApiResponse<>(),
+                ApiResponse.builder().timestamp(LocalDateTime.of(2026, 3, 1, 10, 15)).build());
+
+        for (ApiResponse<?> response : responses) {
+            String expected = beanMapper.writeValueAsString(response);
+            assertEquals(expected, fastMapper.writeValueAsString(response));
+            Class<?> dataType = response.getData() == null ? Void.class : response.getData().getClass();
+            assertEquals(expected, jsonCodecs.envelopeWriter(dataType).writeValueAsString(response));
+        }
+    }
+
+    @Test
+    void reusedTimestampIsWrittenAgainAndANewOneReplacesIt() {
+        LocalDateTime first = LocalDateTime.of(2026, 3, 1, 10, 15, 30, 123_000_000);
+        LocalDateTime second = first.plusNanos(1_000_000);
+        ApiResponse<Void> response = ApiResponse.error("req-1", "E", "m");
+
+        for (LocalDateTime timestamp : List.of(first, first, second, second, first)) {
+            response.setTimestamp(timestamp);
+            assertEquals(beanMapper.writeValueAsString(response), fastMapper.writeValueAsString(response));
+        }
+        JsonMapper numericDates = JsonMapper.builder()
+                .addModule(new SimpleModule().addSerializer(new ApiResponseSerializer()))
+                .enable(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        assertEquals(beanMapper.writer().with(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS).writeValueAsString(response),
+                numericDates.writeValueAsString(response));
+    }
+}
@@ -0,0 +1,162 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * What the async appender drops when its queue fills up, what it still writes on shutdown,
+ * and that each event is masked once however many appenders it goes to.
+ */
+class BatchingAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("ecom.keycloakgw.infrastructure.client.KeycloakUserClient");
+    private final BatchingAsyncAppender async = new BatchingAsyncAppender();
+
+    @AfterEach
+    void tearDown() {
+        async.stop();
+    }
+
+    @Test
+    void dropNewestDropsWhatDoesNotFitAndKeepsTheRest() throws InterruptedException {
+        GatedAppender sink = start(EDropPolicy.DROP_NEWEST, 2);
+
+        async.doAppend(event(Level.INFO, "held by the worker"));
+        assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            async.doAppend(event(Level.ERROR, "queued " + i));
+        }
+        sink.gate.countDown();
+        async.stop();
+
+        assertEquals(2, async.getDroppedCount());
+        assertEquals(List.of("held by the worker", "queued 0", "queued 1"), sink.messages());
+    }
+
+    @Test
+    void belowWarnIsDiscardedOnceTheQueueIsNearlyFull() throws InterruptedException {
+        async.setDiscardingThreshold(2);
+        GatedAppender sink = start(EDropPolicy.DISCARD_BELOW_WARN, 4);
+
+        async.doAppend(event(Level.INFO, "held by the worker"));
+        assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+        // capacity left 4, 3, 2: queued; then below the threshold of 2
+        for (int i = 0; i < 4; i++) {
+            async.doAppend(event(Level.INFO, "info " + i));
+        }
+        async.doAppend(event(Level.WARN, "warn"));
+        sink.gate.countDown();
+        async.stop();
+
+        assertEquals(1, async.getDroppedCount());
+        assertEquals(List.of("held by the worker", "info 0", "info 1", "info 2", "warn"), sink.messages());
+    }
+
+    @Test
+    void shutdownWritesOrCountsEveryQueuedEvent() throws InterruptedException {
+        async.setMaxFlushTime(50);
+        async.setMaxBatchSize(5);
+        GatedAppender sink = start(EDropPolicy.DROP_NEWEST, 100);
+
+        async.doAppend(event(Level.INFO, "held by the worker"));
+        assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 60; i++) {
+            async.doAppend(event(Level.INFO, "queued " + i));
+        }
+        sink.delayMillis = 10;
+        sink.gate.countDown();
+        async.stop();
+
+        // stop() gives the worker maxFlushTime plus one poll, then the worker finishes its batch alone
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sink.events.size() + async.getDroppedCount() < 61 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(61, sink.events.size() + async.getDroppedCount());
+        assertTrue(async.getDroppedCount() > 0, "the flush should have run out of time");
+    }
+
+    @Test
+    void eventIsMaskedOnceForAllAppenders() throws InterruptedException {
+        async.addMaskPattern("password");
+        GatedAppender first = start(EDropPolicy.DROP_NEWEST, 16);
+        GatedAppender second = attach("second");
+        first.gate.countDown();
+        second.gate.countDown();
+
+        async.doAppend(event(Level.INFO, "Form: username=alice&password=hunter2"));
+        async.stop();
+
+        assertEquals(List.of("Form: username=alice&password=*******"), first.messages());
+        assertSame(first.events.peek(), second.events.peek());
+    }
+
+    private GatedAppender start(EDropPolicy dropPolicy, int queueSize) {
+        async.setContext(context);
+        async.setName("async");
+        async.setDropPolicy(dropPolicy);
+        async.setQueueSize(queueSize);
+        GatedAppender sink = attach("sink");
+        async.start();
+        return sink;
+    }
+
+    private GatedAppender attach(String name) {
+        GatedAppender sink = new GatedAppender();
+        sink.setContext(context);
+        sink.setName(name);
+        sink.start();
+        async.addAppender(sink);
+        return sink;
+    }
+
+    private LoggingEvent event(Level level, String message) {
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, level, message, null, null);
+        event.setMDCPropertyMap(Map.of());
+        return event;
+    }
+
+    /** Holds the worker on its first event until the gate opens, so the queue can be filled. */
+    private static final class GatedAppender extends AppenderBase<ILoggingEvent> {
+
+        private final ConcurrentLinkedQueue<ILoggingEvent> events = new ConcurrentLinkedQueue<>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private volatile long delayMillis;
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                gate.await();
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+
+        List<String> messages() {
+            return events.stream().map(ILoggingEvent::getFormattedMessage).toList();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import ecom.log.utils.LoggerUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Thousands of requests interleaved over a few threads, each logging before and after
+ * several thread hops and from a value shared by all of them: every line must carry its
+ * own request's ids, and no id may stay on a thread once its log call returns.
+ */
+class ContextMdcTest {
+
+    private static final int REQUESTS = 5_000;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(ContextMdcTest.class);
+    private final CapturingAppender appender = new CapturingAppender();
+    private Scheduler workers;
+
+    @BeforeEach
+    void setUp() {
+        appender.setContext((LoggerContext) LoggerFactory.getILoggerFactory());
+        appender.start();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        workers = Schedulers.newParallel("mdc-test", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setAdditive(true);
+        logger.setLevel(null);
+        workers.dispose();
+    }
+
+    @Test
+    void logsCarryTheirOwnRequestIdAcrossThreadHops() {
+        Mono<String> shared = Mono.delay(Duration.ofMillis(20), workers).map(tick -> "shared").cache();
+
+        List<String> leaked = Flux.range(0, REQUESTS)
+                .flatMap(i -> request("req-" + i, shared), 512)
+                .collectList()
+                .block(Duration.ofSeconds(60));
+
+        assertEquals(REQUESTS, leaked.size());
+        assertTrue(leaked.stream().allMatch(String::isEmpty), () -> "MDC left on worker thread: " + leaked);
+        assertEquals(REQUESTS * 5, appender.lines.size());
+        for (String[] line : appender.lines) {
+            assertEquals(line[0], line[1], "requestId in MDC does not match the request that logged");
+            assertEquals("trace-" + line[0], line[2], "traceId in MDC does not match the request that logged");
+        }
+        assertNull(MDC.get(RequestIdWebFilter.REQUEST_ID_KEY));
+    }
+
+    @Test
+    void previousMdcIsRestoredAfterTheLogCall() {
+        MDC.put(RequestIdWebFilter.REQUEST_ID_KEY, "outer");
+        try {
+            ContextMdc.run(Context.of(RequestIdWebFilter.REQUEST_ID_KEY, "inner"),
+                    () -> LoggerUtils.info(ContextMdcTest.class, "{}", "inner"));
+            assertEquals("outer", MDC.get(RequestIdWebFilter.REQUEST_ID_KEY));
+            assertEquals("inner", appender.lines.peek()[1]);
+        } finally {
+            MDC.remove(RequestIdWebFilter.REQUEST_ID_KEY);
+        }
+    }
+
+    /**
+     * Logs once while subscribing, once after a delay, once from a {@code flatMap} callback,
+     * once after the shared value and once after a scheduler hop, then reports what the MDC
+     * held on the final thread outside any log call.
+     */
+    private Mono<String> request(String requestId, Mono<String> shared) {
+        Mono<String> chain = Mono.fromCallable(() -> {
+                    LoggerUtils.info(ContextMdcTest.class, "{}", requestId);
+                    return requestId;
+                })
+                .delayElement(Duration.ofNanos(ThreadLocalRandom.current().nextLong(1_000_000)), workers)
+                .doOnEach(ContextMdc.onNext(value -> LoggerUtils.info(ContextMdcTest.class, "{}", requestId)))
+                .flatMap(value -> ContextMdc.deferWithMdc(() -> {
+                    LoggerUtils.info(ContextMdcTest.class, "{}", requestId);
+                    return Mono.just(value);
+                }))
+                .then(shared)
+                .doOnEach(ContextMdc.onNext(value -> LoggerUtils.info(ContextMdcTest.class, "{}", requestId)))
+                .publishOn(workers)
+                .doOnEach(ContextMdc.onNext(value -> LoggerUtils.info(ContextMdcTest.class, "{}", requestId)))
+                .map(value -> {
+                    String left = MDC.get(RequestIdWebFilter.REQUEST_ID_KEY);
+                    return left == null ? "" : left;
+                });
+        return ContextMdc.subscribeWithMdc(chain)
+                .contextWrite(Context.of(RequestIdWebFilter.REQUEST_ID_KEY, requestId,
+                        RequestIdWebFilter.TRACE_ID_KEY, "trace-" + requestId));
+    }
+
+    private static final class CapturingAppender extends AppenderBase<ILoggingEvent> {
+
+        private final Queue<String[]> lines = new ConcurrentLinkedQueue<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            Map<String, String> mdc = event.getMDCPropertyMap();
+            lines.add(new String[]{String.valueOf(event.getArgumentArray()[0]),
+                    mdc.get(RequestIdWebFilter.REQUEST_ID_KEY), mdc.get(RequestIdWebFilter.TRACE_ID_KEY)});
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ecom.keycloakgw.infrastructure.config.GatewayProperties;
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plans come from the defaults plus the matching rules, and a call writes a line only when
+ * it is sampled or slow, rendering its arguments only then.
+ */
+class InvocationLogAdvisorTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SampleService.class);
+    private final CapturingAppender appender = new CapturingAppender();
+    private InvocationLogAdvisor advisor;
+    private SampleService service;
+
+    @BeforeEach
+    void setUp() {
+        appender.setContext((LoggerContext) LoggerFactory.getILoggerFactory());
+        appender.start();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+
+        GatewayProperties.InvocationLogging config = new GatewayProperties.InvocationLogging();
+        config.setSampleRate(0);
+        config.setSlowThreshold(Duration.ZERO);
+        config.setMethods(List.of(
+                rule("SampleService.*", 1.0, null),
+                rule("*.slow", 0.0, Duration.ofMillis(20)),
+                rule("SampleService.quiet", 0.0, null)));
+        advisor = new InvocationLogAdvisor(() -> config);
+        ProxyFactory factory = new ProxyFactory(new SampleService());
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(advisor);
+        service = (SampleService) factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setAdditive(true);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void sampledCallIsLoggedWhenTheMonoCompletesWithRedactedHeader() {
+        String value = service.lookup("42", "Bearer secret")
+                .contextWrite(Context.of(RequestIdWebFilter.REQUEST_ID_KEY, "req-1"))
+                .block();
+
+        assertEquals("value-42", value);
+        assertEquals(1, appender.events.size());
+        ILoggingEvent event = appender.events.peek();
+        assertEquals(Level.INFO, event.getLevel());
+        assertTrue(event.getFormattedMessage().startsWith("SampleService.lookup took "));
+        assertTrue(event.getFormattedMessage().endsWith("outcome=ok, args=[id=42, authorization=***]"));
+        assertEquals("req-1", event.getMDCPropertyMap().get(RequestIdWebFilter.REQUEST_ID_KEY));
+    }
+
+    @Test
+    void onlySlowCallsOfATimedMethodAreLogged() throws Exception {
+        RenderCounter argument = new RenderCounter();
+        service.slow(Duration.ZERO, argument).block();
+        assertTrue(appender.events.isEmpty());
+        assertEquals(0, argument.renders.get());
+
+        service.slow(Duration.ofMillis(50), argument).block();
+        assertEquals(1, appender.events.size());
+        assertEquals(Level.WARN, appender.events.peek().getLevel());
+        assertTrue(appender.events.peek().getFormattedMessage().startsWith("Slow call SampleService.slow took "));
+        assertEquals(1, argument.renders.get());
+    }
+
+    @Test
+    void slowCallCancelledByTheCallerIsLogged() {
+        service.slow(Duration.ofSeconds(5), new RenderCounter())
+                .take(Duration.ofMillis(50))
+                .contextWrite(Context.of(RequestIdWebFilter.REQUEST_ID_KEY, "req-2"))
+                .block();
+
+        assertEquals(1, appender.events.size());
+        ILoggingEvent event = appender.events.peek();
+        assertEquals(Level.WARN, event.getLevel());
+        assertTrue(event.getFormattedMessage().contains("outcome=cancelled"));
+        assertEquals("req-2", event.getMDCPropertyMap().get(RequestIdWebFilter.REQUEST_ID_KEY));
+    }
+
+    @Test
+    void argumentsAreNotRenderedWhenTheLevelIsOff() {
+        logger.setLevel(Level.WARN);
+        RenderCounter argument = new RenderCounter();
+
+        service.render(argument);
+
+        assertEquals(0, argument.renders.get());
+        assertTrue(appender.events.isEmpty());
+    }
+
+    @Test
+    void synchronousFailureIsLoggedAndRethrown() {
+        assertThrows(IllegalStateException.class, service::fail);
+        assertTrue(appender.events.peek().getFormattedMessage()
+                .contains("outcome=java.lang.IllegalStateException: boom"));
+    }
+
+    @Test
+    void methodsThatNeitherSampleNorTimeAreNotIntercepted() throws Exception {
+        assertFalse(advisor.matches(SampleService.class.getMethod("quiet"), SampleService.class));
+        assertTrue(advisor.matches(SampleService.class.getMethod("fail"), SampleService.class));
+
+        service.quiet();
+
+        assertTrue(appender.events.isEmpty());
+    }
+
+    private static GatewayProperties.MethodRule rule(String name, Double sampleRate, Duration slowThreshold) {
+        GatewayProperties.MethodRule rule = new GatewayProperties.MethodRule();
+        rule.setName(name);
+        rule.setSampleRate(sampleRate);
+        rule.setSlowThreshold(slowThreshold);
+        return rule;
+    }
+
+    @LogInvocations
+    static class SampleService {
+
+        public Mono<String> lookup(String id, String authorization) {
+            return Mono.just("value-" + id);
+        }
+
+        public Mono<Void> slow(Duration delay, Object argument) {
+            return delay.isZero() ? Mono.empty() : Mono.delay(delay).then();
+        }
+
+        public String render(Object argument) {
+            return "rendered";
+        }
+
+        public String fail() {
+            throw new IllegalStateException("boom");
+        }
+
+        public String quiet() {
+            return "quiet";
+        }
+    }
+
+    private static final class RenderCounter {
+
+        private final AtomicInteger renders = new AtomicInteger();
+
+        @Override
+        public String toString() {
+            renders.incrementAndGet();
+            return "counter";
+        }
+    }
+
+    private static final class CapturingAppender extends AppenderBase<ILoggingEvent> {
+
+        private final Queue<ILoggingEvent> events = new ConcurrentLinkedQueue<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            event.prepareForDeferredProcessing();
+            events.add(event);
+        }
+    }
+}
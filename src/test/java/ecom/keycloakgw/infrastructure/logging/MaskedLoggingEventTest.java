@@ -0,0 +1,146 @@
+package ecom.keycloakgw.infrastructure.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ecom.log.pattern.MaskingPatternLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An event masked once and rendered with a plain layout must read exactly as the
+ * regex-based layout from logging-common renders it, for the mask keys configured in
+ * logback-spring.xml.
+ */
+class MaskedLoggingEventTest {
+
+    private static final List<String> KEYS = List.of("password", "credential", "cardNumber", "otp");
+    private static final String PATTERN = "[%d{yyyy-MM-dd HH:mm:ss.SSS}] [%-20.20logger{36}] [%-20.20t] "
+            + "[X-Request-Id:%-36.36X{requestId}] [userId:%-12.12X{userId}] %m%n";
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("ecom.keycloakgw.infrastructure.client.KeycloakUserClient");
+    private final LogMasker masker = LogMasker.of(KEYS);
+    private MaskingPatternLayout regexLayout;
+    private PatternLayout plainLayout;
+
+    @BeforeEach
+    void setUp() {
+        regexLayout = new MaskingPatternLayout();
+        plainLayout = new PatternLayout();
+        for (PatternLayout layout : List.of(regexLayout, plainLayout)) {
+            layout.setContext(context);
+            layout.setPattern(PATTERN);
+        }
+        KEYS.forEach(regexLayout::addMaskPattern);
+        regexLayout.start();
+        plainLayout.start();
+    }
+
+    @Test
+    void realisticLinesRenderIdentically() {
+        List<String> messages = List.of(
+                "Processing user login for username=alice",
+                "Calling Keycloak user login: POST http://localhost:8080/realms/ecom/protocol/openid-connect/token",
+                "Request body: {\"username\":\"alice\",\"password\":\"s3cr3t!\",\"email\":\"alice@example.com\"}",
+                "Request body: {\"username\": \"bob\", \"password\" : \"p@ss word\", \"temporary\": false}",
+                "Form: grant_type=password&client_id=ecom-client&username=alice&password=hunter2&scope=openid",
+                "Reset credential for userId=4a5b6c7d credential={type=password, value=abc123, temporary=false}",
+                "Payment cardNumber=4111111111111111 expiry=12/29 otp: 123456",
+                "User {\"id\":\"4a5b\",\"totp\":false,\"disableableCredentialTypes\":[],\"requiredActions\":[]}",
+                "passwordPolicy=length(8) and otpPolicyType=totp",
+                "password= otp=\"\" credential:, cardNumber=}",
+                "nested password=otp=123&x=1 and \"password\"=\"a\"b\"",
+                "unicode pässword=x password=élève otp=中文",
+                "no secrets here at all");
+
+        for (String message : messages) {
+            LoggingEvent event = event(message);
+            assertEquals(regexLayout.doLayout(event), maskedLine(event), message);
+        }
+    }
+
+    @Test
+    void randomLinesRenderIdentically() {
+        String[] fragments = {"password", "passwor", "credential", "cardNumber", "otp", "totp", "pass", "card",
+                "\"", ":", "=", " ", "\t", ",", "}", "{", "&", "]", ")", "[", "value", "42", "*", "é", "\n"};
+        Random random = new Random(42);
+        for (int line = 0; line < 20_000; line++) {
+            StringBuilder message = new StringBuilder();
+            int parts = 1 + random.nextInt(24);
+            for (int i = 0; i < parts; i++) {
+                message.append(fragments[random.nextInt(fragments.length)]);
+            }
+            LoggingEvent event = event(message.toString());
+            assertEquals(regexLayout.doLayout(event), maskedLine(event), message::toString);
+        }
+    }
+
+    @Test
+    void exceptionTextIsMaskedToo() {
+        IllegalStateException cause = new IllegalStateException("Rejected form username=alice&password=hunter2");
+        RuntimeException error = new RuntimeException("Login failed for otp=123456", cause);
+        error.addSuppressed(new IllegalArgumentException("credential=abc"));
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.ERROR, "Login failed", error, null);
+        event.setMDCPropertyMap(Map.of());
+
+        String line = maskedLine(event);
+
+        assertEquals(regexLayout.doLayout(event), line);
+        assertTrue(line.contains("IllegalStateException: Rejected form username=alice&password=*******"));
+        assertFalse(line.contains("hunter2"));
+        assertFalse(line.contains("123456"));
+        assertFalse(line.contains("abc"));
+    }
+
+    @Test
+    void exceptionRenderedByItsOwnToStringIsMasked() {
+        RuntimeException error = new RuntimeException("ignored") {
+            @Override
+            public String toString() {
+                return "Keycloak rejected password=hunter2";
+            }
+        };
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.ERROR, "Login failed", error, null);
+        event.setMDCPropertyMap(Map.of());
+
+        String line = maskedLine(event);
+
+        assertTrue(line.contains("Keycloak rejected password=*******"), line);
+        assertFalse(line.contains("hunter2"));
+    }
+
+    @Test
+    void eventWithoutSecretsIsPassedOnAsItIs() {
+        LoggingEvent event = event("Processing user login for username=alice");
+        assertSame(event, MaskedLoggingEvent.of(masker, event));
+    }
+
+    @Test
+    void maskerReturnsTheSameStringWhenNothingIsMasked() {
+        String message = "Processing user login for username=alice";
+        assertSame(message, masker.mask(message));
+    }
+
+    private String maskedLine(LoggingEvent event) {
+        return plainLayout.doLayout(MaskedLoggingEvent.of(masker, event));
+    }
+
+    private LoggingEvent event(String message) {
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, message, null, null);
+        event.setThreadName("reactor-http-epoll-3");
+        event.setMDCPropertyMap(Map.of("requestId", "0b1c2d3e-4f5a-6b7c-8d9e-0f1a2b3c4d5e", "userId", "alice"));
+        return event;
+    }
+}
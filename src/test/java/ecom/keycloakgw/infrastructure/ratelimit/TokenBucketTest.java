@@ -0,0 +1,62 @@
+package ecom.keycloakgw.infrastructure.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A fresh bucket allows {@code capacity} requests at once, then one per emission interval,
+ * and an idle bucket never saves up more than {@code capacity}.
+ */
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long START = 1_000 * SECOND;
+
+    @Test
+    void burstUpToCapacityThenWaitForTheNextEmission() {
+        TokenBucket bucket = new TokenBucket(3, 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryConsume(START));
+        }
+        assertEquals(SECOND / 2, bucket.tryConsume(START));
+        assertEquals(SECOND / 4, bucket.tryConsume(START + SECOND / 4));
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() {
+        TokenBucket bucket = new TokenBucket(2, 1);
+        bucket.tryConsume(START);
+        bucket.tryConsume(START);
+
+        assertEquals(0, bucket.tryConsume(START + SECOND));
+        assertEquals(SECOND, bucket.tryConsume(START + SECOND));
+        assertEquals(0, bucket.tryConsume(START + 2 * SECOND));
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 1);
+        bucket.tryConsume(START);
+
+        long later = START + 60 * SECOND;
+        assertEquals(0, bucket.tryConsume(later));
+        assertEquals(0, bucket.tryConsume(later));
+        assertEquals(SECOND, bucket.tryConsume(later));
+    }
+
+    @Test
+    void rejectedRequestDoesNotTakeAToken() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        bucket.tryConsume(START);
+
+        for (int i = 0; i < 5; i++) {
+            bucket.tryConsume(START + SECOND / 2);
+        }
+
+        assertEquals(0, bucket.tryConsume(START + SECOND));
+    }
+}
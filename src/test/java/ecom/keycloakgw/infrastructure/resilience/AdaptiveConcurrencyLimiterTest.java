@@ -0,0 +1,150 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ecom.keycloakgw.domain.exception.BusinessException;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Permits are taken and given back per exchange, requests over the limit wait briefly and
+ * are then turned away, and the limit follows Keycloak's latency and overload answers.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final ClientRequest REQUEST = ClientRequest.create(HttpMethod.GET, URI.create("http://keycloak/")).build();
+
+    @Test
+    void permitIsHeldForTheExchangeAndReturnedAfterwards() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, properties -> { });
+        Sinks.One<ClientResponse> first = Sinks.one();
+        Sinks.One<ClientResponse> second = Sinks.one();
+
+        limiter.filter(REQUEST, request -> first.asMono()).subscribe();
+        limiter.filter(REQUEST, request -> second.asMono()).subscribe();
+        assertEquals(2, limiter.getInFlight());
+
+        first.tryEmitValue(response(HttpStatus.OK));
+        second.tryEmitError(new IllegalStateException("not an upstream failure"));
+
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void queuedRequestRunsOncePermitIsReturned() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, properties -> { });
+        Sinks.One<ClientResponse> first = Sinks.one();
+        AtomicReference<ClientResponse> queued = new AtomicReference<>();
+
+        limiter.filter(REQUEST, request -> first.asMono()).subscribe();
+        limiter.filter(REQUEST, request -> Mono.just(response(HttpStatus.OK))).subscribe(queued::set);
+        assertNull(queued.get());
+
+        first.tryEmitValue(response(HttpStatus.OK));
+
+        assertNotNull(queued.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void requestThatWaitsTooLongIsRejectedAsBusy() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, properties -> properties.setMaxQueueWait(Duration.ofMillis(20)));
+        Disposable holder = limiter.filter(REQUEST, request -> Mono.never()).subscribe();
+
+        Throwable error = limiter.filter(REQUEST, request -> Mono.just(response(HttpStatus.OK)))
+                .then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just)
+                .block(Duration.ofSeconds(5));
+
+        BusinessException busy = assertInstanceOf(BusinessException.class, error);
+        assertEquals(ErrorCode.KEYCLOAK_BUSY, busy.getErrorCode());
+        holder.dispose();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void fullQueueIsRejectedWithoutWaiting() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, properties -> properties.setMaxQueued(0));
+        limiter.filter(REQUEST, request -> Mono.never()).subscribe();
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        limiter.filter(REQUEST, request -> Mono.just(response(HttpStatus.OK))).subscribe(response -> { }, error::set);
+
+        assertInstanceOf(BusinessException.class, error.get());
+    }
+
+    @Test
+    void limitGrowsWhileLatencyStaysFlat() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, properties -> { });
+
+        for (int round = 0; round < 10; round++) {
+            List<Sinks.One<ClientResponse>> exchanges = new ArrayList<>();
+            for (int i = 0; i < limiter.getLimit(); i++) {
+                Sinks.One<ClientResponse> exchange = Sinks.one();
+                exchanges.add(exchange);
+                limiter.filter(REQUEST, request -> exchange.asMono()).subscribe();
+            }
+            exchanges.forEach(exchange -> exchange.tryEmitValue(response(HttpStatus.OK)));
+        }
+
+        assertTrue(limiter.getLimit() > 4, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void overloadAnswersAndTimeoutsBackOff() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, properties -> properties.setBackoffRatio(0.5));
+
+        limiter.filter(REQUEST, request -> Mono.just(response(HttpStatus.SERVICE_UNAVAILABLE))).subscribe();
+        assertEquals(50, limiter.getLimit());
+
+        limiter.filter(REQUEST, request -> Mono.error(new TimeoutException())).subscribe(response -> { }, error -> { });
+        assertEquals(25, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.filter(REQUEST, request -> Mono.just(response(HttpStatus.TOO_MANY_REQUESTS))).subscribe();
+        }
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void limitNeverExceedsTheConnectionPool() {
+        AdaptiveConcurrencyLimiter limiter = limiter(500, properties -> { });
+        assertEquals(200, limiter.getLimit());
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit,
+                                                      Consumer<KeycloakProperties.ConcurrencyLimit> tuning) {
+        KeycloakProperties properties = new KeycloakProperties();
+        KeycloakProperties.ConcurrencyLimit config = properties.getConcurrencyLimit();
+        config.setEnabled(true);
+        config.setInitialLimit(initialLimit);
+        config.setMinLimit(1);
+        config.setMaxLimit(1000);
+        tuning.accept(config);
+        return new AdaptiveConcurrencyLimiter(properties);
+    }
+
+    private static ClientResponse response(HttpStatus status) {
+        return ClientResponse.create(status).build();
+    }
+}
@@ -0,0 +1,158 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The breaker opens on the failure or slow-call rate of the sliding window once it holds
+ * enough calls, then lets a fixed number of probes decide whether to close again.
+ */
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(3).toNanos();
+
+    @Test
+    void opensWhenTheFailureRateCrossesTheThreshold() {
+        CircuitBreaker breaker = breaker(policy -> { });
+
+        for (int i = 0; i < 5; i++) {
+            breaker.onResult(false, FAST);
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(true, FAST);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onResult(true, FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void staysClosedUntilTheMinimumNumberOfCalls() {
+        CircuitBreaker breaker = breaker(policy -> { });
+
+        for (int i = 0; i < 9; i++) {
+            breaker.onResult(true, FAST);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void oldOutcomesLeaveTheSlidingWindow() {
+        CircuitBreaker breaker = breaker(policy -> { });
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(true, FAST);
+        }
+        for (int i = 0; i < 10; i++) {
+            breaker.onResult(false, FAST);
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(true, FAST);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void opensWhenTheSlowCallRateCrossesTheThreshold() {
+        CircuitBreaker breaker = breaker(policy -> { });
+
+        for (int i = 0; i < 2; i++) {
+            breaker.onResult(false, FAST);
+        }
+        for (int i = 0; i < 7; i++) {
+            breaker.onResult(false, SLOW);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onResult(false, SLOW);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenLetsOnlyThePermittedProbesThrough() {
+        CircuitBreaker breaker = openBreaker(policy -> policy.setWaitDurationInOpenState(Duration.ZERO));
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.releasePermission();
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void successfulProbesCloseTheCircuit() {
+        CircuitBreaker breaker = openBreaker(policy -> policy.setWaitDurationInOpenState(Duration.ZERO));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onResult(false, FAST);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        for (int i = 0; i < 9; i++) {
+            breaker.onResult(true, FAST);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failingProbesOpenTheCircuitAgain() {
+        CircuitBreaker breaker = openBreaker(policy -> policy.setWaitDurationInOpenState(Duration.ZERO));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+        }
+        breaker.onResult(false, FAST);
+        breaker.onResult(true, FAST);
+        breaker.onResult(false, SLOW);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void openCircuitRejectsUntilTheWaitHasPassed() {
+        CircuitBreaker breaker = openBreaker(policy -> policy.setWaitDurationInOpenState(Duration.ofMinutes(1)));
+
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private static CircuitBreaker openBreaker(Consumer<KeycloakProperties.Resilience.Policy> tuning) {
+        CircuitBreaker breaker = breaker(tuning);
+        for (int i = 0; i < 10; i++) {
+            breaker.onResult(true, FAST);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static CircuitBreaker breaker(Consumer<KeycloakProperties.Resilience.Policy> tuning) {
+        KeycloakProperties.Resilience.Policy policy = new KeycloakProperties.Resilience.Policy();
+        policy.setSlidingWindowSize(10);
+        policy.setMinimumNumberOfCalls(10);
+        policy.setFailureRateThreshold(50);
+        policy.setSlowCallRateThreshold(80);
+        policy.setSlowCallDuration(Duration.ofSeconds(2));
+        policy.setPermittedCallsInHalfOpenState(3);
+        tuning.accept(policy);
+        return new CircuitBreaker("test", policy);
+    }
+}
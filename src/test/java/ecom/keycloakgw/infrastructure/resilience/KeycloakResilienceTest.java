@@ -0,0 +1,98 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ecom.keycloakgw.domain.exception.BusinessException;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * A full bulkhead turns calls away as KEYCLOAK_BUSY, an open circuit as
+ * KEYCLOAK_UNAVAILABLE, and only upstream failures count against the breaker.
+ */
+class KeycloakResilienceTest {
+
+    private static final EKeycloakOperation OPERATION = EKeycloakOperation.GET_USER_BY_ID;
+
+    @Test
+    void fullBulkheadRejectsAsBusy() {
+        KeycloakResilience resilience = resilience();
+        Disposable first = guarded(resilience, Mono.never()).subscribe();
+        Disposable second = guarded(resilience, Mono.never()).subscribe();
+
+        assertEquals(ErrorCode.KEYCLOAK_BUSY, errorCode(guarded(resilience, Mono.just("user"))));
+
+        first.dispose();
+        second.dispose();
+        assertEquals(0, resilience.bulkhead(OPERATION.getGroup()).getInFlight());
+        assertEquals("user", guarded(resilience, Mono.just("user")).block(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void bulkheadIsPerOperationGroup() {
+        KeycloakResilience resilience = resilience();
+        guarded(resilience, Mono.never()).subscribe();
+        guarded(resilience, Mono.never()).subscribe();
+
+        String token = Mono.just("token")
+                .transform(resilience.<String>guard(EKeycloakOperation.USER_LOGIN))
+                .block(Duration.ofSeconds(1));
+
+        assertEquals("token", token);
+    }
+
+    @Test
+    void openCircuitRejectsAsUnavailable() {
+        KeycloakResilience resilience = resilience();
+        for (int i = 0; i < 4; i++) {
+            errorCode(guarded(resilience, Mono.error(response(HttpStatus.BAD_GATEWAY))));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, resilience.circuitBreaker(OPERATION.getGroup()).getState());
+        assertEquals(ErrorCode.KEYCLOAK_UNAVAILABLE, errorCode(guarded(resilience, Mono.just("user"))));
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheCircuit() {
+        KeycloakResilience resilience = resilience();
+        for (int i = 0; i < 10; i++) {
+            guarded(resilience, Mono.error(response(HttpStatus.NOT_FOUND))).subscribe(value -> { }, error -> { });
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, resilience.circuitBreaker(OPERATION.getGroup()).getState());
+    }
+
+    private static KeycloakResilience resilience() {
+        KeycloakProperties properties = new KeycloakProperties();
+        KeycloakProperties.Resilience.Policy defaults = properties.getResilience().getDefaults();
+        defaults.setSlidingWindowSize(4);
+        defaults.setMinimumNumberOfCalls(4);
+        defaults.setMaxConcurrentCalls(2);
+        defaults.setWaitDurationInOpenState(Duration.ofMinutes(1));
+        return new KeycloakResilience(properties);
+    }
+
+    private static Mono<String> guarded(KeycloakResilience resilience, Mono<String> call) {
+        return call.transform(resilience.<String>guard(OPERATION));
+    }
+
+    private static ErrorCode errorCode(Mono<String> call) {
+        Throwable error = call.then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just)
+                .block(Duration.ofSeconds(1));
+        return error instanceof BusinessException business ? business.getErrorCode() : null;
+    }
+
+    private static WebClientResponseException response(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), HttpHeaders.EMPTY, null, null);
+    }
+}
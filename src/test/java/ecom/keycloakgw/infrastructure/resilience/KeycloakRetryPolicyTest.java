@@ -0,0 +1,125 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A hedged read answers with whichever attempt succeeds; an error only comes back once
+ * both attempts have failed. A retry is logged under the request that made the call.
+ */
+class KeycloakRetryPolicyTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(20);
+
+    private Function<Mono<String>, Mono<String>> hedged;
+
+    @BeforeEach
+    void setUp() {
+        KeycloakProperties properties = new KeycloakProperties();
+        properties.getRetry().setMaxRetries(0);
+        properties.getRetry().getHedging().setEnabled(true);
+        properties.getRetry().getHedging().setMinSamples(64);
+        properties.getRetry().getHedging().setMinDelay(HEDGE_DELAY);
+        KeycloakRetryPolicy policy = new KeycloakRetryPolicy(properties);
+        hedged = policy.idempotent(EKeycloakOperation.GET_USER_BY_ID);
+        // enough fast samples for a percentile, so the hedge fires after min-delay
+        for (int i = 0; i < 64; i++) {
+            hedged.apply(Mono.just("warm-up")).block();
+        }
+    }
+
+    @Test
+    void hedgeWinsWhenThePrimaryFailsAfterItStarted() {
+        Mono<String> source = attempts(
+                Mono.delay(Duration.ofMillis(60)).then(Mono.error(new IllegalStateException("bad node"))),
+                Mono.delay(Duration.ofMillis(100)).thenReturn("from hedge"));
+
+        assertEquals("from hedge", hedged.apply(source).block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void primaryErrorIsReportedOnceTheHedgeFailsToo() {
+        IllegalStateException primary = new IllegalStateException("primary");
+        Mono<String> source = attempts(
+                Mono.delay(Duration.ofMillis(60)).then(Mono.error(primary)),
+                Mono.delay(Duration.ofMillis(100)).then(Mono.error(new IllegalStateException("hedge"))));
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> hedged.apply(source).block(Duration.ofSeconds(5)));
+        assertSame(primary, thrown);
+    }
+
+    @Test
+    void failedHedgeDoesNotCancelTheRunningPrimary() {
+        Mono<String> source = attempts(
+                Mono.delay(Duration.ofMillis(150)).thenReturn("from primary"),
+                Mono.error(new IllegalStateException("hedge")));
+
+        assertEquals("from primary", hedged.apply(source).block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void primaryFailureBeforeTheHedgeDelayIsReportedAtOnce() {
+        IllegalStateException primary = new IllegalStateException("primary");
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> source = Mono.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Mono.error(primary);
+        });
+
+        assertSame(primary, assertThrows(IllegalStateException.class,
+                () -> hedged.apply(source).block(Duration.ofSeconds(5))));
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    void retryIsLoggedUnderTheCallersRequestId() {
+        KeycloakProperties properties = new KeycloakProperties();
+        properties.getRetry().setMaxRetries(1);
+        properties.getRetry().setBaseDelay(Duration.ofMillis(1));
+        Function<Mono<String>, Mono<String>> retried = new KeycloakRetryPolicy(properties)
+                .idempotent(EKeycloakOperation.GET_USER_BY_ID);
+        Mono<String> source = attempts(Mono.error(new TimeoutException("slow node")), Mono.just("second try"));
+
+        Logger logger = (Logger) LoggerFactory.getLogger(KeycloakRetryPolicy.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            String result = retried.apply(source)
+                    .contextWrite(Context.of(RequestIdWebFilter.REQUEST_ID_KEY, "retry-req"))
+                    .block(Duration.ofSeconds(5));
+
+            assertEquals("second try", result);
+            assertEquals(1, appender.list.size());
+            assertEquals("retry-req", appender.list.get(0).getMDCPropertyMap().get(RequestIdWebFilter.REQUEST_ID_KEY));
+        } finally {
+            logger.detachAppender(appender);
+        }
+    }
+
+    /** Each subscription to the returned source plays the next scripted attempt. */
+    private static Mono<String> attempts(Mono<String> primary, Mono<String> hedge) {
+        List<Mono<String>> scripted = List.of(primary, hedge);
+        AtomicInteger next = new AtomicInteger();
+        return Mono.defer(() -> scripted.get(next.getAndIncrement()));
+    }
+}
@@ -0,0 +1,144 @@
+package ecom.keycloakgw.infrastructure.resilience;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ecom.keycloakgw.infrastructure.filter.RequestIdWebFilter;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent callers with the same key share one upstream call, its result or error,
+ * and keep it alive as long as any of them still waits.
+ */
+class SingleFlightTest {
+
+    private static final String KEY = "getUserById(42)";
+
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final Sinks.One<String> upstream = Sinks.one();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger cancels = new AtomicInteger();
+
+    @Test
+    void concurrentCallersShareOneCall() {
+        List<String> results = new CopyOnWriteArrayList<>();
+        call("first").subscribe(results::add);
+        call("second").subscribe(results::add);
+
+        upstream.tryEmitValue("user 42");
+
+        assertEquals(List.of("user 42", "user 42"), results);
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.upstreamCalls());
+        assertEquals(1, singleFlight.coalescedCalls());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void errorReachesEveryCaller() {
+        IllegalStateException failure = new IllegalStateException("keycloak down");
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        call("first").subscribe(value -> { }, errors::add);
+        call("second").subscribe(value -> { }, errors::add);
+
+        upstream.tryEmitError(failure);
+
+        assertEquals(2, errors.size());
+        errors.forEach(error -> assertSame(failure, error));
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void firstCallerCancellingLeavesTheCallToTheOthers() {
+        AtomicReference<String> second = new AtomicReference<>();
+        Disposable first = call("first").subscribe();
+        call("second").subscribe(second::set);
+
+        first.dispose();
+        upstream.tryEmitValue("user 42");
+
+        assertEquals(0, cancels.get());
+        assertEquals("user 42", second.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void callIsCancelledOnceEveryCallerHasCancelled() {
+        Disposable first = call("first").subscribe();
+        Disposable second = call("second").subscribe();
+
+        first.dispose();
+        second.dispose();
+
+        assertEquals(1, cancels.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void callerArrivingAsTheCallCompletesGetsItsResult() {
+        AtomicReference<String> late = new AtomicReference<>();
+        // the key is still registered while the first caller is being completed
+        call("first").doOnSuccess(value -> call("late").subscribe(late::set)).subscribe();
+
+        upstream.tryEmitValue("user 42");
+
+        assertEquals("user 42", late.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void callAfterCompletionGoesUpstreamAgain() {
+        call("first").subscribe();
+        upstream.tryEmitValue("user 42");
+
+        String next = singleFlight.execute(KEY, () -> Mono.just("fresh")).block(Duration.ofSeconds(1));
+
+        assertEquals("fresh", next);
+        assertEquals(2, singleFlight.upstreamCalls());
+    }
+
+    @Test
+    void joiningCallerLogsTheLeadingRequestUnderItsOwnId() {
+        Logger logger = (Logger) LoggerFactory.getLogger(SingleFlight.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            call("first").subscribe();
+            call("second").subscribe();
+        } finally {
+            logger.detachAppender(appender);
+        }
+
+        assertEquals(1, appender.list.size());
+        ILoggingEvent joined = appender.list.get(0);
+        assertEquals("second", joined.getMDCPropertyMap().get(RequestIdWebFilter.REQUEST_ID_KEY));
+        assertTrue(joined.getFormattedMessage().contains("requestId=first"), joined.getFormattedMessage());
+        assertFalse(joined.getMDCPropertyMap().containsValue("first"));
+    }
+
+    private Mono<String> call(String requestId) {
+        return singleFlight.execute(KEY, () -> {
+                    calls.incrementAndGet();
+                    return upstream.asMono().doOnCancel(cancels::incrementAndGet);
+                })
+                .contextWrite(Context.of(RequestIdWebFilter.REQUEST_ID_KEY, requestId));
+    }
+}
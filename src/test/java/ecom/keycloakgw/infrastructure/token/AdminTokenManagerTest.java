@@ -0,0 +1,106 @@
+package ecom.keycloakgw.infrastructure.token;
+
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.application.dto.response.TokenResponse;
+import ecom.keycloakgw.domain.exception.BusinessException;
+import ecom.keycloakgw.domain.exception.ErrorCode;
+import ecom.keycloakgw.infrastructure.client.KeycloakAuthClient;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * With the service account enabled, the gateway's token is only used for callers whose own
+ * token verifies as active and carries the admin realm role.
+ */
+class AdminTokenManagerTest {
+
+    private final KeycloakAuthClient keycloakAuthClient = mock(KeycloakAuthClient.class);
+    private final TokenVerifier tokenVerifier = mock(TokenVerifier.class);
+    private final AtomicReference<String> usedToken = new AtomicReference<>();
+    private AdminTokenManager manager;
+
+    @BeforeEach
+    void setUp() {
+        KeycloakProperties properties = new KeycloakProperties();
+        properties.getServiceAccount().setEnabled(true);
+        properties.getServiceAccount().setRealm("ecom");
+        properties.getServiceAccount().setClientId("ecom-client");
+        properties.getServiceAccount().setClientSecret("secret");
+        when(keycloakAuthClient.clientCredentialsLogin(any(), any(), any()))
+                .thenReturn(Mono.just(TokenResponse.builder().accessToken("service-token").expiresIn(300L).build()));
+        manager = new AdminTokenManager(keycloakAuthClient, tokenVerifier, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.destroy();
+    }
+
+    @Test
+    void missingCallerTokenIsUnauthorized() {
+        assertRefused(null, ErrorCode.UNAUTHORIZED);
+        assertRefused(" ", ErrorCode.UNAUTHORIZED);
+        verify(tokenVerifier, never()).verify(any());
+    }
+
+    @Test
+    void inactiveCallerTokenIsUnauthorized() {
+        when(tokenVerifier.verify("forged")).thenReturn(Mono.just(IntrospectResponse.builder().active(false).build()));
+        when(tokenVerifier.verify("undecided")).thenReturn(Mono.empty());
+
+        assertRefused("forged", ErrorCode.UNAUTHORIZED);
+        assertRefused("undecided", ErrorCode.UNAUTHORIZED);
+    }
+
+    @Test
+    void callerWithoutTheAdminRoleIsForbidden() {
+        when(tokenVerifier.verify("customer")).thenReturn(Mono.just(caller(List.of("CUSTOMER"))));
+        when(tokenVerifier.verify("no-roles")).thenReturn(Mono.just(IntrospectResponse.builder().active(true).build()));
+
+        assertRefused("customer", ErrorCode.FORBIDDEN);
+        assertRefused("no-roles", ErrorCode.FORBIDDEN);
+    }
+
+    @Test
+    void adminCallerRunsWithTheServiceAccountToken() {
+        when(tokenVerifier.verify("admin")).thenReturn(Mono.just(caller(List.of("CUSTOMER", "admin"))));
+
+        assertEquals("ok", manager.execute("admin", this::call).block());
+        assertEquals("service-token", usedToken.get());
+    }
+
+    private void assertRefused(String callerToken, ErrorCode expected) {
+        BusinessException ex = assertThrows(BusinessException.class, () -> manager.execute(callerToken, this::call).block());
+        assertEquals(expected, ex.getErrorCode());
+        assertNull(usedToken.get(), "Keycloak must not be called for a refused caller");
+        verify(keycloakAuthClient, never()).clientCredentialsLogin(any(), any(), any());
+    }
+
+    private Mono<String> call(String token) {
+        usedToken.set(token);
+        return Mono.just("ok");
+    }
+
+    private static IntrospectResponse caller(List<String> roles) {
+        return IntrospectResponse.builder()
+                .active(true)
+                .username("caller")
+                .realmAccess(new IntrospectResponse.RealmAccess(roles))
+                .build();
+    }
+}
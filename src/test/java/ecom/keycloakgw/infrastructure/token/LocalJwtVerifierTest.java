@@ -0,0 +1,196 @@
+package ecom.keycloakgw.infrastructure.token;
+
+import ecom.keycloakgw.application.dto.response.IntrospectResponse;
+import ecom.keycloakgw.application.dto.response.JwksResponse;
+import ecom.keycloakgw.domain.utils.ETokenValidationMode;
+import ecom.keycloakgw.infrastructure.client.KeycloakUserClient;
+import ecom.keycloakgw.infrastructure.config.KeycloakProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Signature, key lookup and claim checks of {@link LocalJwtVerifier} against a real
+ * {@link JwksKeyStore} fed by a stubbed certs endpoint.
+ */
+class LocalJwtVerifierTest {
+
+    private static final String ISSUER = "http://keycloak.test/realms/ecom";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final KeycloakUserClient keycloakUserClient = mock(KeycloakUserClient.class);
+    private final KeyPair first = generateKeyPair();
+    private final KeyPair second = generateKeyPair();
+    private KeycloakProperties properties;
+    private LocalJwtVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KeycloakProperties();
+        properties.setBaseUrl("http://keycloak.test");
+        properties.setEcom(new KeycloakProperties.Ecom());
+        properties.getEcom().setEcomRealm("ecom");
+        properties.getTokenValidation().setMode(ETokenValidationMode.LOCAL);
+        properties.getTokenValidation().setClockSkew(Duration.ofSeconds(30));
+        properties.getTokenValidation().setJwksMinRefreshInterval(Duration.ofMinutes(1));
+        verifier = new LocalJwtVerifier(new JwksKeyStore(keycloakUserClient, properties), properties, jsonMapper);
+    }
+
+    @Test
+    void issuerIsDerivedFromBaseUrlAndRealm() {
+        publish(jwks("k1", first));
+
+        assertEquals(Boolean.TRUE, check(token("k1", first, claims())).getActive());
+    }
+
+    @Test
+    void keysAreCachedByKid() {
+        publish(jwks("k1", first));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Boolean.TRUE, check(token("k1", first, claims())).getActive());
+        }
+        verify(keycloakUserClient, times(1)).getJwks();
+    }
+
+    @Test
+    void unknownKidRefreshesTheKeySetAtMostOncePerInterval() {
+        when(keycloakUserClient.getJwks())
+                .thenReturn(Mono.just(jwks("k1", first)))
+                .thenReturn(Mono.just(new JwksResponse(List.of(key("k1", first), key("k2", second)))));
+        assertEquals(Boolean.TRUE, check(token("k1", first, claims())).getActive());
+        assertNull(verifier.verify(token("k2", second, claims())).block(), "refresh right after a load is throttled");
+
+        properties.getTokenValidation().setJwksMinRefreshInterval(Duration.ZERO);
+        assertEquals(Boolean.TRUE, check(token("k2", second, claims())).getActive());
+        properties.getTokenValidation().setJwksMinRefreshInterval(Duration.ofMinutes(1));
+        assertNull(verifier.verify(token("k3", second, claims())).block(), "k3 is unknown and refresh is throttled");
+        verify(keycloakUserClient, times(2)).getJwks();
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsInactive() {
+        publish(jwks("k1", first));
+
+        assertEquals(Boolean.FALSE, check(token("k1", second, claims())).getActive());
+    }
+
+    @Test
+    void expiryAndNotBeforeAllowTheClockSkew() {
+        publish(jwks("k1", first));
+        long now = System.currentTimeMillis() / 1000;
+
+        assertEquals(Boolean.TRUE, check(token("k1", first, claims("exp", now - 10))).getActive());
+        assertEquals(Boolean.FALSE, check(token("k1", first, claims("exp", now - 60))).getActive());
+        assertEquals(Boolean.TRUE, check(token("k1", first, claims("nbf", now + 10))).getActive());
+        assertEquals(Boolean.FALSE, check(token("k1", first, claims("nbf", now + 60))).getActive());
+    }
+
+    @Test
+    void issuerAndAudienceMustMatch() {
+        publish(jwks("k1", first));
+        properties.getTokenValidation().setAudiences(List.of("ecom-client"));
+
+        assertEquals(Boolean.FALSE, check(token("k1", first, claims("iss", "http://other/realms/ecom"))).getActive());
+        assertEquals(Boolean.TRUE, check(token("k1", first, claims("aud", List.of("account", "ecom-client")))).getActive());
+        assertEquals(Boolean.TRUE, check(token("k1", first, claims("aud", "ecom-client"))).getActive());
+        assertEquals(Boolean.FALSE, check(token("k1", first, claims("aud", "account"))).getActive());
+        assertEquals(Boolean.FALSE, check(token("k1", first, claims())).getActive());
+    }
+
+    @Test
+    void segmentDecodingToJsonNullIsNotAJwt() {
+        String nullSegment = BASE64.encodeToString("null".getBytes(StandardCharsets.US_ASCII));
+        String claims = encode(claims());
+        String header = encode(Map.of("alg", "RS256", "kid", "k1"));
+
+        assertEquals(Boolean.FALSE, check(nullSegment + "." + claims + ".c2ln").getActive());
+        assertEquals(Boolean.FALSE, check(header + "." + nullSegment + ".c2ln").getActive());
+        assertNull(Jwt.parse(header + "." + nullSegment + ".c2ln", jsonMapper));
+    }
+
+    private IntrospectResponse check(String token) {
+        return verifier.verify(token).block();
+    }
+
+    private void publish(JwksResponse jwks) {
+        when(keycloakUserClient.getJwks()).thenReturn(Mono.just(jwks));
+    }
+
+    private static Map<String, Object> claims(Object... overrides) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("iss", ISSUER);
+        claims.put("sub", "user-1");
+        claims.put("preferred_username", "user");
+        claims.put("exp", System.currentTimeMillis() / 1000 + 300);
+        for (int i = 0; i < overrides.length; i += 2) {
+            claims.put((String) overrides[i], overrides[i + 1]);
+        }
+        return claims;
+    }
+
+    private String token(String kid, KeyPair signer, Map<String, Object> claims) {
+        String signingInput = encode(Map.of("alg", "RS256", "typ", "JWT", "kid", kid)) + "." + encode(claims);
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(signer.getPrivate());
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + BASE64.encodeToString(signature.sign());
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String encode(Map<String, Object> json) {
+        return BASE64.encodeToString(jsonMapper.writeValueAsBytes(json));
+    }
+
+    private static JwksResponse jwks(String kid, KeyPair keyPair) {
+        return new JwksResponse(List.of(key(kid, keyPair)));
+    }
+
+    private static JwksResponse.Key key(String kid, KeyPair keyPair) {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        return new JwksResponse.Key(kid, "RSA", "RS256", "sig",
+                unsigned(publicKey.getModulus()), unsigned(publicKey.getPublicExponent()));
+    }
+
+    private static String unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int offset = bytes[0] == 0 ? 1 : 0;
+        return BASE64.encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
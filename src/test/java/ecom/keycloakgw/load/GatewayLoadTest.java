@@ -0,0 +1,180 @@
+package ecom.keycloakgw.load;
+
+import ecom.log.utils.LoggerUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives every gateway route at a fixed arrival rate against {@link KeycloakSimulator}.
+ * Excluded from the default build; run with {@code mvn -Pload-test test}. Tune with
+ * {@code -Dload.rate=500 -Dload.duration=30 -Dload.warmup=10 -Dload.max-error-rate=0.01}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GatewayLoadTest {
+
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "50"));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration", 10));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup", 5));
+    private static final double WARMUP_RATE = Math.min(RATE, 20);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+    private static final int MAX_OUTSTANDING = 2_000;
+
+    private static final KeycloakSimulator SIMULATOR = KeycloakSimulator.start(
+                    LatencyDistribution.logNormal(Duration.ofMillis(3), 0.5), 1_000)
+            // Password grants hash the password and are the slowest Keycloak call
+            .latency(KeycloakSimulator.Endpoint.TOKEN, LatencyDistribution.logNormal(Duration.ofMillis(40), 0.4));
+
+    @LocalServerPort
+    private int port;
+
+    private WebClient client;
+    private final AtomicLong registrations = new AtomicLong();
+
+    @DynamicPropertySource
+    static void keycloak(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.base-url", SIMULATOR::baseUrl);
+        registry.add("keycloak.token-validation.mode", () -> "LOCAL_WITH_FALLBACK");
+        registry.add("gateway.rate-limit.enabled", () -> false);
+    }
+
+    @AfterAll
+    static void stopSimulator() {
+        SIMULATOR.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        SIMULATOR.clearFaults();
+        client = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + port)
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build();
+    }
+
+    @Test
+    void allRoutesAtFixedArrivalRate() {
+        String admin = "Bearer " + SIMULATOR.accessToken("master", "admin");
+        String userToken = SIMULATOR.accessToken("ecom", "seed-user-1");
+        String logoutToken = SIMULATOR.accessToken("ecom", "logout-user");
+        String userId = SIMULATOR.anyUserId();
+
+        List<Route> routes = List.of(
+                new Route("POST /auth/admin/login", RATE, () -> call(HttpMethod.POST, "/api/v1/auth/admin/login", null,
+                        Map.of("username", "admin", "password", "admin"))),
+                new Route("POST /users/login", RATE, () -> call(HttpMethod.POST, "/api/v1/users/login", null,
+                        Map.of("username", "seed-user-1", "password", "secret"))),
+                new Route("POST /users/register", RATE, () -> call(HttpMethod.POST, "/api/v1/users/register", admin,
+                        Map.of("username", "load-" + registrations.incrementAndGet(), "password", "secret",
+                                "email", "load@example.com", "firstName", "Load", "lastName", "Test"))),
+                new Route("GET /users/{id}", RATE, () -> call(HttpMethod.GET, "/api/v1/users/" + userId, admin, null)),
+                new Route("PUT /users/{id}", RATE, () -> call(HttpMethod.PUT, "/api/v1/users/" + userId, admin,
+                        Map.of("firstName", "Updated"))),
+                new Route("PUT /users/{id}/reset-password", RATE, () -> call(HttpMethod.PUT,
+                        "/api/v1/users/" + userId + "/reset-password", admin, Map.of("password", "new-secret"))),
+                new Route("POST /users/validate-token", RATE, () -> call(HttpMethod.POST, "/api/v1/users/validate-token", null,
+                        Map.of("token", userToken))),
+                new Route("POST /validate-token/batch", RATE, () -> call(HttpMethod.POST, "/api/v1/users/validate-token/batch", null,
+                        Map.of("tokens", List.of(userToken, logoutToken, userToken, "not-a-jwt")))),
+                new Route("POST /users/logout", RATE, () -> call(HttpMethod.POST, "/api/v1/users/logout", null,
+                        Map.of("refresh_token", logoutToken))),
+                new Route("GET /users/export", Math.max(1, RATE / 50), () -> export(admin)));
+
+        warmUp(routes);
+        List<LoadDriver.Result> results = routes.stream().map(this::measure).toList();
+
+        report("Healthy Keycloak", results);
+        for (LoadDriver.Result result : results) {
+            assertTrue(result.errorRate() <= MAX_ERROR_RATE,
+                    () -> result.name() + " error rate " + result.errorRate() + " above " + MAX_ERROR_RATE);
+        }
+    }
+
+    @Test
+    void adminReadsUnderInjectedServerErrors() {
+        double injected = 0.05;
+        SIMULATOR.fault(KeycloakSimulator.Endpoint.USER, injected, 503);
+        String admin = "Bearer " + SIMULATOR.accessToken("master", "admin");
+        String userId = SIMULATOR.anyUserId();
+
+        Route route = new Route("GET /users/{id} (5% 503)", RATE,
+                () -> call(HttpMethod.GET, "/api/v1/users/" + userId, admin, null));
+
+        warmUp(List.of(route));
+        LoadDriver.Result result = measure(route);
+
+        report("Injected upstream errors", List.of(result));
+        // Retries should hide most injected failures from callers
+        assertTrue(result.errorRate() < injected, () -> "error rate " + result.errorRate());
+    }
+
+    /**
+     * Drives every route at a low rate first so the measured runs are not dominated by
+     * JIT compilation and cold caches. Warm-up results are discarded.
+     */
+    private void warmUp(List<Route> routes) {
+        if (WARMUP.isZero()) {
+            return;
+        }
+        for (Route route : routes) {
+            LoadDriver.run(route.name(), Math.min(route.rate(), WARMUP_RATE), WARMUP, MAX_OUTSTANDING, route.call());
+        }
+    }
+
+    private LoadDriver.Result measure(Route route) {
+        return LoadDriver.run(route.name(), route.rate(), DURATION, MAX_OUTSTANDING, route.call());
+    }
+
+    private Mono<Boolean> call(HttpMethod method, String path, String authorization, Object body) {
+        WebClient.RequestBodySpec request = client.method(method).uri(path);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+        }
+        return request.retrieve()
+                .bodyToMono(Map.class)
+                .map(response -> "00".equals(response.get("code")));
+    }
+
+    private Mono<Boolean> export(String authorization) {
+        return client.get()
+                .uri("/api/v1/users/export")
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(Map.class)
+                .count()
+                .map(count -> count > 0);
+    }
+
+    private static void report(String scenario, List<LoadDriver.Result> results) {
+        StringBuilder table = new StringBuilder(scenario).append(System.lineSeparator())
+                .append(LoadDriver.Result.header());
+        results.forEach(result -> table.append(System.lineSeparator()).append(result));
+        LoggerUtils.info(GatewayLoadTest.class, "Load test results: {}{}", System.lineSeparator(), table);
+    }
+
+    private record Route(String name, double rate, Supplier<Mono<Boolean>> call) {
+    }
+}
@@ -0,0 +1,371 @@
+package ecom.keycloakgw.load;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * In-process stand-in for the Keycloak endpoints the gateway calls: token (password and
+ * client_credentials), introspect, logout, certs, and the admin users, roles and
+ * role-mapping APIs. Tokens are real RS256 JWTs signed with a key published on the certs
+ * endpoint, so local verification works against it. Latency and error injection can be
+ * set per endpoint and changed while the simulator is running.
+ */
+public final class KeycloakSimulator implements AutoCloseable {
+
+    public enum Endpoint {
+        TOKEN, INTROSPECT, LOGOUT, CERTS, USERS, USER, ROLE, ROLE_MAPPING
+    }
+
+    private static final String KID = "simulator";
+    private static final Base64.Encoder B64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    // Tests change latencies and faults while event-loop threads are serving requests
+    private final Map<Endpoint, LatencyDistribution> latencies = new ConcurrentHashMap<>();
+    private final Map<Endpoint, Fault> faults = new ConcurrentHashMap<>();
+    private final Map<Endpoint, AtomicLong> requests = new EnumMap<>(Endpoint.class);
+    private final Map<String, Map<String, Object>> usersById = new ConcurrentSkipListMap<>();
+    private final Map<String, String> idsByUsername = new ConcurrentHashMap<>();
+    private final Map<String, IssuedToken> tokensBySubject = new ConcurrentHashMap<>();
+    private final KeyPair signingKey;
+    private final String jwks;
+    private DisposableServer server;
+    private String issuerPrefix;
+
+    private KeycloakSimulator(LatencyDistribution defaultLatency) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, defaultLatency);
+            requests.put(endpoint, new AtomicLong());
+        }
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            this.signingKey = generator.generateKeyPair();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+        RSAPublicKey publicKey = (RSAPublicKey) signingKey.getPublic();
+        this.jwks = json(Map.of("keys", List.of(Map.of(
+                "kid", KID, "kty", "RSA", "alg", "RS256", "use", "sig",
+                "n", B64URL.encodeToString(unsigned(publicKey.getModulus())),
+                "e", B64URL.encodeToString(unsigned(publicKey.getPublicExponent()))))));
+    }
+
+    public static KeycloakSimulator start(LatencyDistribution defaultLatency, int seededUsers) {
+        KeycloakSimulator simulator = new KeycloakSimulator(defaultLatency);
+        for (int i = 0; i < seededUsers; i++) {
+            simulator.addUser("seed-user-" + i);
+        }
+        simulator.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .post("/realms/{realm}/protocol/openid-connect/token", simulator.handle(Endpoint.TOKEN, simulator::token))
+                        .post("/realms/{realm}/protocol/openid-connect/token/introspect", simulator.handle(Endpoint.INTROSPECT, simulator::introspect))
+                        .post("/realms/{realm}/protocol/openid-connect/logout", simulator.handle(Endpoint.LOGOUT, (request, body) -> noContent()))
+                        .get("/realms/{realm}/protocol/openid-connect/certs", simulator.handle(Endpoint.CERTS, (request, body) -> ok(simulator.jwks)))
+                        .post("/admin/realms/{realm}/users", simulator.handle(Endpoint.USERS, simulator::createUser))
+                        .get("/admin/realms/{realm}/users", simulator.handle(Endpoint.USERS, simulator::listUsers))
+                        .get("/admin/realms/{realm}/users/{id}", simulator.handle(Endpoint.USER, simulator::getUser))
+                        .put("/admin/realms/{realm}/users/{id}", simulator.handle(Endpoint.USER, simulator::existingUser))
+                        .put("/admin/realms/{realm}/users/{id}/reset-password", simulator.handle(Endpoint.USER, simulator::existingUser))
+                        .post("/admin/realms/{realm}/users/{id}/role-mappings/realm", simulator.handle(Endpoint.ROLE_MAPPING, simulator::existingUser))
+                        .get("/admin/realms/{realm}/roles/{name}", simulator.handle(Endpoint.ROLE, simulator::role)))
+                .bindNow();
+        simulator.issuerPrefix = simulator.baseUrl() + "/realms/";
+        return simulator;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    public String issuer(String realm) {
+        return issuerPrefix + realm;
+    }
+
+    public KeycloakSimulator latency(Endpoint endpoint, LatencyDistribution latency) {
+        latencies.put(endpoint, latency);
+        return this;
+    }
+
+    public KeycloakSimulator fault(Endpoint endpoint, double probability, int status) {
+        faults.put(endpoint, new Fault(probability, status));
+        return this;
+    }
+
+    public KeycloakSimulator clearFaults() {
+        faults.clear();
+        return this;
+    }
+
+    public long requestCount(Endpoint endpoint) {
+        return requests.get(endpoint).get();
+    }
+
+    public String anyUserId() {
+        return usersById.keySet().iterator().next();
+    }
+
+    /**
+     * A token for {@code username} as the password grant would return it.
+     */
+    public String accessToken(String realm, String username) {
+        return issue(realm, username).accessToken();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    private BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> handle(
+            Endpoint endpoint, BiFunction<HttpServerRequest, String, Reply> handler) {
+        return (request, response) -> request.receive().aggregate().asString(StandardCharsets.UTF_8)
+                .defaultIfEmpty("")
+                .flatMap(body -> {
+                    requests.get(endpoint).incrementAndGet();
+                    Fault fault = faults.get(endpoint);
+                    Reply reply = fault != null && ThreadLocalRandom.current().nextDouble() < fault.probability()
+                            ? new Reply(fault.status(), "{\"error\":\"injected\"}", null)
+                            : handler.apply(request, body);
+                    long delay = latencies.get(endpoint).nextNanos();
+                    Mono<Reply> delayed = delay > 0
+                            ? Mono.delay(Duration.ofNanos(delay)).thenReturn(reply)
+                            : Mono.just(reply);
+                    return delayed.flatMap(r -> send(response, r));
+                });
+    }
+
+    private static Mono<Void> send(HttpServerResponse response, Reply reply) {
+        response.status(HttpResponseStatus.valueOf(reply.status()));
+        if (reply.location() != null) {
+            response.header("Location", reply.location());
+        }
+        if (reply.body() == null) {
+            return response.send().then();
+        }
+        return response.header("Content-Type", "application/json")
+                .sendString(Mono.just(reply.body()))
+                .then();
+    }
+
+    private Reply token(HttpServerRequest request, String body) {
+        Map<String, List<String>> form = new QueryStringDecoder(body, false).parameters();
+        String grantType = first(form, "grant_type");
+        String subject = "client_credentials".equals(grantType)
+                ? "service-account-" + first(form, "client_id")
+                : first(form, "username");
+        if (subject == null) {
+            return new Reply(400, "{\"error\":\"invalid_request\"}", null);
+        }
+        IssuedToken token = issue(request.param("realm"), subject);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("access_token", token.accessToken());
+        response.put("expires_in", 300);
+        response.put("refresh_expires_in", 1800);
+        response.put("refresh_token", token.accessToken());
+        response.put("token_type", "Bearer");
+        response.put("not-before-policy", 0);
+        response.put("session_state", token.sessionId());
+        response.put("scope", "profile email");
+        return ok(json(response));
+    }
+
+    private Reply introspect(HttpServerRequest request, String body) {
+        String token = first(new QueryStringDecoder(body, false).parameters(), "token");
+        if (token == null) {
+            return ok("{\"active\":false}");
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return ok("{\"active\":false}");
+        }
+        Map<?, ?> claims = jsonMapper.readValue(Base64.getUrlDecoder().decode(parts[1]), Map.class);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("active", ((Number) claims.get("exp")).longValue() > System.currentTimeMillis() / 1000);
+        response.put("username", claims.get("preferred_username"));
+        response.put("client_id", claims.get("azp"));
+        response.put("token_type", "Bearer");
+        response.put("scope", claims.get("scope"));
+        response.put("sub", claims.get("sub"));
+        response.put("exp", claims.get("exp"));
+        response.put("iat", claims.get("iat"));
+        return ok(json(response));
+    }
+
+    private Reply createUser(HttpServerRequest request, String body) {
+        Map<?, ?> user = jsonMapper.readValue(body, Map.class);
+        String username = (String) user.get("username");
+        if (username == null || idsByUsername.containsKey(username)) {
+            return new Reply(409, "{\"errorMessage\":\"User exists with same username\"}", null);
+        }
+        String id = addUser(username);
+        return new Reply(201, null, baseUrl() + request.uri() + "/" + id);
+    }
+
+    private Reply listUsers(HttpServerRequest request, String body) {
+        Map<String, List<String>> query = new QueryStringDecoder(request.uri()).parameters();
+        String username = first(query, "username");
+        if (username != null) {
+            String id = idsByUsername.get(username);
+            return ok(json(id == null ? List.of() : List.of(usersById.get(id))));
+        }
+        int firstResult = Integer.parseInt(first(query, "first", "0"));
+        int max = Integer.parseInt(first(query, "max", "100"));
+        List<Map<String, Object>> page = new ArrayList<>(max);
+        int index = 0;
+        for (Map<String, Object> user : usersById.values()) {
+            if (index++ < firstResult) {
+                continue;
+            }
+            if (page.size() == max) {
+                break;
+            }
+            page.add(user);
+        }
+        return ok(json(page));
+    }
+
+    private Reply getUser(HttpServerRequest request, String body) {
+        Map<String, Object> user = usersById.get(request.param("id"));
+        return user == null ? notFound() : ok(json(user));
+    }
+
+    private Reply existingUser(HttpServerRequest request, String body) {
+        return usersById.containsKey(request.param("id")) ? noContent() : notFound();
+    }
+
+    private Reply role(HttpServerRequest request, String body) {
+        String name = request.param("name");
+        return ok(json(Map.of("id", UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString(),
+                "name", name, "composite", false, "clientRole", false, "containerId", "ecom")));
+    }
+
+    private String addUser(String username) {
+        String id = UUID.randomUUID().toString();
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("id", id);
+        user.put("username", username);
+        user.put("firstName", "Load");
+        user.put("lastName", "Test");
+        user.put("email", username + "@example.com");
+        user.put("emailVerified", true);
+        user.put("createdTimestamp", System.currentTimeMillis());
+        user.put("enabled", true);
+        user.put("requiredActions", List.of());
+        user.put("attributes", Map.of("locale", List.of("en")));
+        usersById.put(id, user);
+        idsByUsername.put(username, id);
+        return id;
+    }
+
+    /**
+     * Signing costs about a millisecond of CPU that would otherwise be charged to the
+     * gateway under test, so a subject's token is reused until it is close to expiry.
+     */
+    private IssuedToken issue(String realm, String subject) {
+        long now = System.currentTimeMillis() / 1000;
+        return tokensBySubject.compute(realm + "/" + subject, (key, existing) -> {
+            if (existing != null && existing.expiresAt() - now > 60) {
+                return existing;
+            }
+            String sessionId = UUID.randomUUID().toString();
+            Map<String, Object> claims = new LinkedHashMap<>();
+            claims.put("exp", now + 300);
+            claims.put("iat", now);
+            claims.put("jti", UUID.randomUUID().toString());
+            claims.put("iss", issuer(realm));
+            claims.put("aud", "account");
+            claims.put("sub", idsByUsername.getOrDefault(subject, UUID.nameUUIDFromBytes(subject.getBytes(StandardCharsets.UTF_8)).toString()));
+            claims.put("typ", "Bearer");
+            claims.put("azp", "ecom-client");
+            claims.put("sid", sessionId);
+            claims.put("scope", "profile email");
+            claims.put("preferred_username", subject);
+            return new IssuedToken(sign(claims), sessionId, now + 300);
+        });
+    }
+
+    private String sign(Map<String, Object> claims) {
+        String signingInput = B64URL.encodeToString(json(Map.of("alg", "RS256", "typ", "JWT", "kid", KID)).getBytes(StandardCharsets.UTF_8))
+                + "." + B64URL.encodeToString(json(claims).getBytes(StandardCharsets.UTF_8));
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(signingKey.getPrivate());
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + B64URL.encodeToString(signature.sign());
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String json(Object value) {
+        return jsonMapper.writeValueAsString(value);
+    }
+
+    private static String first(Map<String, List<String>> parameters, String name) {
+        return first(parameters, name, null);
+    }
+
+    private static String first(Map<String, List<String>> parameters, String name, String fallback) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? fallback : values.get(0);
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    private static Reply ok(String body) {
+        return new Reply(200, body, null);
+    }
+
+    private static Reply noContent() {
+        return new Reply(204, null, null);
+    }
+
+    private static Reply notFound() {
+        return new Reply(404, "{\"error\":\"User not found\"}", null);
+    }
+
+    private record Reply(int status, String body, String location) {
+    }
+
+    private record Fault(double probability, int status) {
+    }
+
+    private record IssuedToken(String accessToken, String sessionId, long expiresAt) {
+    }
+}
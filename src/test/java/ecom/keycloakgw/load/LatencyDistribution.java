@@ -0,0 +1,37 @@
+package ecom.keycloakgw.load;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Response-time model for a simulated Keycloak endpoint.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    long nextNanos();
+
+    static LatencyDistribution none() {
+        return () -> 0;
+    }
+
+    static LatencyDistribution fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return () -> nanos;
+    }
+
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long low = min.toNanos();
+        long high = max.toNanos();
+        return () -> ThreadLocalRandom.current().nextLong(low, high + 1);
+    }
+
+    /**
+     * Log-normal around {@code median}; {@code sigma} 0.5 puts p99 at roughly 3.2x the
+     * median, which is close to what a healthy Keycloak shows for password grants.
+     */
+    static LatencyDistribution logNormal(Duration median, double sigma) {
+        double mu = Math.log(median.toNanos());
+        return () -> (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+}
@@ -0,0 +1,96 @@
+package ecom.keycloakgw.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Open-loop load generator: requests are scheduled at a fixed arrival rate whatever the
+ * response times are, and latency is measured from each request's scheduled start, so a
+ * stalled gateway shows up in the percentiles instead of silently lowering the offered
+ * load (coordinated omission).
+ */
+public final class LoadDriver {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private LoadDriver() {
+    }
+
+    /**
+     * @param call issues one request and emits {@code true} when the gateway reported success
+     */
+    public static Result run(String name, double ratePerSecond, Duration duration, int maxOutstanding,
+                             Supplier<Mono<Boolean>> call) {
+        long total = Math.max(1, (long) (ratePerSecond * duration.toNanos() / 1e9));
+        double intervalNanos = 1e9 / ratePerSecond;
+        Histogram latencies = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+        AtomicLong errors = new AtomicLong();
+        AtomicLong scheduled = new AtomicLong();
+        long start = System.nanoTime();
+
+        Flux.interval(Duration.ofMillis(1))
+                .onBackpressureDrop()
+                .concatMapIterable(tick -> {
+                    long due = Math.min(total, (long) ((System.nanoTime() - start) / intervalNanos) + 1);
+                    List<Long> intendedStarts = new ArrayList<>();
+                    for (long i = scheduled.get(); i < due; i++) {
+                        intendedStarts.add(start + (long) (i * intervalNanos));
+                    }
+                    scheduled.set(Math.max(scheduled.get(), due));
+                    return intendedStarts;
+                })
+                .take(total)
+                .flatMap(intendedStart -> Mono.defer(call)
+                        .onErrorReturn(false)
+                        .defaultIfEmpty(false)
+                        .doOnNext(success -> {
+                            latencies.recordValue(Math.min(MAX_TRACKABLE_NANOS, System.nanoTime() - intendedStart));
+                            if (!success) {
+                                errors.incrementAndGet();
+                            }
+                        }), maxOutstanding)
+                .blockLast(duration.multipliedBy(3).plusSeconds(30));
+
+        return new Result(name, ratePerSecond, latencies.getTotalCount(), errors.get(),
+                System.nanoTime() - start, latencies);
+    }
+
+    public record Result(String name, double offeredRate, long requests, long errors, long elapsedNanos,
+                         Histogram latencies) {
+
+        public double throughput() {
+            return requests / (elapsedNanos / 1e9);
+        }
+
+        public double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        public double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        public static String header() {
+            return String.format(Locale.ROOT, "%-28s %8s %8s %8s %8s %9s %9s %9s %9s %9s",
+                    "route", "offered", "achieved", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-28s %8.0f %8.1f %8d %7.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f",
+                    name, offeredRate, throughput(), requests, errorRate() * 100,
+                    percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(99.9),
+                    latencies.getMaxValue() / 1e6);
+        }
+    }
+}
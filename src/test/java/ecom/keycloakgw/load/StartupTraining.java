@@ -0,0 +1,207 @@
+package ecom.keycloakgw.load;
+
+import ecom.log.utils.LoggerUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the packaged gateway as a child process against {@link KeycloakSimulator}. Used by
+ * the {@code fast-startup} Maven profile:
+ * <ul>
+ *     <li>{@code train <jar> <archive>} starts the gateway with AOT initialization, sends a
+ *     few rounds of every route and stops it, so the JVM writes a dynamic AppCDS archive of
+ *     everything that was loaded;</li>
+ *     <li>{@code measure <jar> <archive> [runs]} starts the gateway cold and with the AOT
+ *     classes plus the archive, and reports the time from launch to the first successful
+ *     login.</li>
+ * </ul>
+ */
+public final class StartupTraining {
+
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(90);
+    private static final int TRAINING_ROUNDS = 200;
+
+    private final Path jar;
+    private final KeycloakSimulator simulator;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private StartupTraining(Path jar, KeycloakSimulator simulator) {
+        this.jar = jar;
+        this.simulator = simulator;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("usage: train|measure <jar> <archive> [runs]");
+        }
+        Path jar = Path.of(args[1]).toAbsolutePath();
+        Path archive = Path.of(args[2]).toAbsolutePath();
+        try (KeycloakSimulator simulator = KeycloakSimulator.start(LatencyDistribution.none(), 10)) {
+            StartupTraining training = new StartupTraining(jar, simulator);
+            switch (args[0]) {
+                case "train" -> training.train(archive);
+                case "measure" -> training.measure(archive, args.length > 3 ? Integer.parseInt(args[3]) : 3);
+                default -> throw new IllegalArgumentException("unknown command " + args[0]);
+            }
+        }
+        System.exit(0);
+    }
+
+    private void train(Path archive) throws Exception {
+        Files.deleteIfExists(archive);
+        Gateway gateway = start("training", List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.aot.enabled=true"));
+        try {
+            gateway.awaitFirstLogin();
+            String userToken = simulator.accessToken("ecom", "seed-user-1");
+            String admin = "Bearer " + simulator.accessToken("master", "admin");
+            String userId = simulator.anyUserId();
+            for (int i = 0; i < TRAINING_ROUNDS; i++) {
+                gateway.post("/api/v1/auth/admin/login", null, "{\"username\":\"admin\",\"password\":\"admin\"}");
+                gateway.post("/api/v1/users/login", null, "{\"username\":\"seed-user-1\",\"password\":\"secret\"}");
+                gateway.post("/api/v1/users/validate-token", null, "{\"token\":\"" + userToken + "\"}");
+                gateway.post("/api/v1/users/validate-token/batch", null,
+                        "{\"tokens\":[\"" + userToken + "\",\"not-a-jwt\"]}");
+                gateway.get("/api/v1/users/" + userId, admin);
+                gateway.post("/api/v1/users/register", admin, "{\"username\":\"training-" + i
+                        + "\",\"password\":\"secret\",\"email\":\"training@example.com\",\"firstName\":\"T\",\"lastName\":\"R\"}");
+                gateway.post("/api/v1/users/logout", null, "{\"refresh_token\":\"" + userToken + "\"}");
+            }
+        } finally {
+            gateway.stop();
+        }
+        if (!Files.exists(archive)) {
+            throw new IllegalStateException("No archive written to " + archive + ", see " + gateway.log());
+        }
+        LoggerUtils.info(StartupTraining.class, "Wrote {} ({} KB)", archive, Files.size(archive) / 1024);
+    }
+
+    private void measure(Path archive, int runs) throws Exception {
+        List<String> fast = List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true");
+        List<Long> cold = new ArrayList<>();
+        List<Long> warm = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            cold.add(timeToFirstLogin("cold-" + run, List.of()));
+            warm.add(timeToFirstLogin("fast-" + run, fast));
+        }
+        LoggerUtils.info(StartupTraining.class, "Time to first successful login (ms) over {} runs:{}{}{}{}",
+                runs, System.lineSeparator(), "  %-24s %s, median %d".formatted("cold", cold, median(cold)),
+                System.lineSeparator(), "  %-24s %s, median %d".formatted("AOT + AppCDS", warm, median(warm)));
+    }
+
+    private long timeToFirstLogin(String name, List<String> jvmOptions) throws Exception {
+        Gateway gateway = start(name, jvmOptions);
+        try {
+            return gateway.awaitFirstLogin();
+        } finally {
+            gateway.stop();
+        }
+    }
+
+    private Gateway start(String name, List<String> jvmOptions) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-jar", jar.toString(),
+                "--server.port=" + port,
+                "--keycloak.base-url=" + simulator.baseUrl(),
+                "--keycloak.token-validation.mode=LOCAL_WITH_FALLBACK",
+                // as deployed, so the readiness gate is part of the trained and measured startup
+                "--keycloak.readiness.enabled=true",
+                "--gateway.rate-limit.enabled=false"));
+        Path log = jar.resolveSibling(name + ".log");
+        Process process = new ProcessBuilder(command)
+                .directory(jar.getParent().toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        return new Gateway(process, port, log, System.nanoTime());
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = values.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private final class Gateway {
+
+        private final Process process;
+        private final int port;
+        private final Path log;
+        private final long launchedAt;
+
+        Gateway(Process process, int port, Path log, long launchedAt) {
+            this.process = process;
+            this.port = port;
+            this.log = log;
+            this.launchedAt = launchedAt;
+        }
+
+        /** Polls the user login route and returns the milliseconds since launch to its first {@code 200}. */
+        long awaitFirstLogin() throws Exception {
+            long deadline = launchedAt + START_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Gateway exited early, see " + log);
+                }
+                try {
+                    if (post("/api/v1/users/login", null, "{\"username\":\"seed-user-1\",\"password\":\"secret\"}") == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launchedAt);
+                    }
+                } catch (IOException ex) {
+                    // not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("Gateway did not answer within " + START_TIMEOUT + ", see " + log);
+        }
+
+        int post(String path, String authorization, String json) throws IOException, InterruptedException {
+            return send(request(path, authorization)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json)));
+        }
+
+        int get(String path, String authorization) throws IOException, InterruptedException {
+            return send(request(path, authorization).GET());
+        }
+
+        private HttpRequest.Builder request(String path, String authorization) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                    .timeout(Duration.ofSeconds(10));
+            if (authorization != null) {
+                request.header("Authorization", authorization);
+            }
+            return request;
+        }
+
+        private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+            return http.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+
+        void stop() throws InterruptedException {
+            process.destroy();
+            if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+
+        Path log() {
+            return log;
+        }
+    }
+}